@@ -0,0 +1,341 @@
+package net.mooctest;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+public class AssignmentSolver {
+    public static final int PARALLEL_GRAIN = 64;
+    public static final double RELATIVE_TOLERANCE = 1e-7;
+    public static final int INITIAL_CANDIDATES = 32;
+
+    private static final int FREE = -1;
+
+    private final MatchingEngine scorer;
+    private final ForkJoinPool pool;
+
+    public AssignmentSolver(MatchingEngine scorer) {
+        this(scorer, ForkJoinPool.commonPool());
+    }
+
+    public AssignmentSolver(MatchingEngine scorer, ForkJoinPool pool) {
+        this.scorer = scorer == null ? new MatchingEngine() : scorer;
+        this.pool = pool;
+    }
+
+    public List<MatchingEngine.Assignment> solve(List<Researcher> researchers, List<Task> tasks) {
+        List<MatchingEngine.Assignment> res = new ArrayList<>();
+        if (researchers == null || tasks == null || researchers.isEmpty() || tasks.isEmpty()) return res;
+        Researcher[] people = researchers.toArray(new Researcher[0]);
+        Task[] jobs = tasks.toArray(new Task[0]);
+        int r = people.length;
+        int[][] cand = new int[r][];
+        double[][] value = new double[r][];
+        double[] cutoff = new double[r];
+        int[] limit = new int[r];
+        Arrays.fill(limit, Math.min(INITIAL_CANDIDATES, jobs.length));
+        Eligibility eligible = new Eligibility(people, jobs);
+        boolean[] redo = new boolean[r];
+        Arrays.fill(redo, true);
+        while (true) {
+            buildCandidates(eligible, limit, redo, cand, value, cutoff);
+            int[] objectOf = new int[jobs.length];
+            Arrays.fill(objectOf, FREE);
+            int u = 0;
+            int[][] local = new int[r][];
+            for (int i = 0; i < r; i++) {
+                local[i] = new int[cand[i].length];
+                for (int k = 0; k < cand[i].length; k++) {
+                    int j = cand[i][k];
+                    if (objectOf[j] == FREE) objectOf[j] = u++;
+                    local[i][k] = objectOf[j];
+                }
+            }
+            if (u == 0) return res;
+            int[] taskOf = new int[u];
+            for (int j = 0; j < jobs.length; j++) if (objectOf[j] != FREE) taskOf[objectOf[j]] = j;
+
+            AugmentingPaths solver = new AugmentingPaths(local, value, u);
+            int[] assigned = solver.run();
+            // a truncated list is safe once the researcher's profit beats every task left out of it
+            boolean grown = false;
+            for (int i = 0; i < r; i++) {
+                redo[i] = cutoff[i] > solver.profit(i) + RELATIVE_TOLERANCE * Math.max(1, Math.abs(cutoff[i])) && limit[i] < jobs.length;
+                if (redo[i]) {
+                    limit[i] = (int)Math.min(jobs.length, 2L * limit[i]);
+                    grown = true;
+                }
+            }
+            if (grown) continue;
+
+            int[] personOfTask = new int[jobs.length];
+            Arrays.fill(personOfTask, FREE);
+            for (int i = 0; i < r; i++) if (assigned[i] >= 0 && assigned[i] < u) personOfTask[taskOf[assigned[i]]] = i;
+            for (int j = 0; j < jobs.length; j++) {
+                int i = personOfTask[j];
+                if (i == FREE) continue;
+                Researcher p = people[i];
+                Task t = jobs[j];
+                double sc = scorer.score(p, t);
+                p.assignTask(t);
+                t.assignTo(p.getId());
+                res.add(new MatchingEngine.Assignment(t, p, sc));
+            }
+            return res;
+        }
+    }
+
+    /** Researcher eligibility per task as bit rows, with the capacity and rating each researcher had when solving began. */
+    private final class Eligibility {
+        final Researcher[] people;
+        final Task[] jobs;
+        final int[] duration;
+        final int[] capacity;
+        final double[] rating;
+        final boolean snapshotScores;
+        final long[][] rows;
+
+        Eligibility(Researcher[] people, Task[] jobs) {
+            this.people = people;
+            this.jobs = jobs;
+            this.duration = new int[jobs.length];
+            this.capacity = new int[people.length];
+            this.rating = new double[people.length];
+            this.snapshotScores = scorer.hasDefaultScore();
+            this.rows = new long[jobs.length][];
+            SkillIndex index = SkillIndex.of(Arrays.asList(people));
+            for (int i = 0; i < people.length; i++) {
+                capacity[i] = people[i].getCapacity();
+                rating[i] = people[i].getRating();
+            }
+            Parallel.forRange(pool, 0, jobs.length, PARALLEL_GRAIN, j -> {
+                rows[j] = index.candidates(jobs[j]);
+                duration[j] = jobs[j].getDuration();
+            });
+        }
+    }
+
+    // top-limit scoring tasks per researcher; scanned task-major over 64-researcher words so each row is read once
+    private void buildCandidates(Eligibility e, int[] limit, boolean[] redo, int[][] cand, double[][] value, double[] cutoff) {
+        int words = (e.people.length + 63) >>> 6;
+        Parallel.forRange(pool, 0, words, 1, w -> {
+            int base = w << 6;
+            int count = Math.min(64, e.people.length - base);
+            long mask = 0;
+            for (int b = 0; b < count; b++) if (redo[base + b]) mask |= 1L << b;
+            if (mask == 0) return;
+            int[][] heapTask = new int[count][];
+            double[][] heapScore = new double[count][];
+            int[] n = new int[count];
+            for (int b = 0; b < count; b++) {
+                if ((mask & (1L << b)) == 0) continue;
+                heapTask[b] = new int[limit[base + b]];
+                heapScore[b] = new double[limit[base + b]];
+            }
+            for (int j = 0; j < e.jobs.length; j++) {
+                for (long bits = e.rows[j][w] & mask; bits != 0; bits &= bits - 1) {
+                    int b = Long.numberOfTrailingZeros(bits);
+                    int i = base + b;
+                    if (e.capacity[i] < e.duration[j]) continue;
+                    double sc = e.snapshotScores ? MatchingEngine.score(e.capacity[i], e.rating[i], e.duration[j])
+                            : scorer.score(e.people[i], e.jobs[j]);
+                    if (!(sc > 0)) continue;
+                    n[b] = offer(heapTask[b], heapScore[b], n[b], i, j, sc);
+                }
+            }
+            for (int b = 0; b < count; b++) {
+                if ((mask & (1L << b)) == 0) continue;
+                int i = base + b;
+                cand[i] = Arrays.copyOf(heapTask[b], n[b]);
+                value[i] = Arrays.copyOf(heapScore[b], n[b]);
+                cutoff[i] = n[b] == limit[i] ? heapScore[b][0] : Double.NEGATIVE_INFINITY;
+            }
+        });
+    }
+
+    // ties are broken by a per-researcher hash so researchers with equal scores keep different tasks
+    private static int offer(int[] heapTask, double[] heapScore, int n, int i, int j, double sc) {
+        if (n < heapTask.length) {
+            int c = n++;
+            while (c > 0 && before(i, j, sc, heapTask[(c - 1) >>> 1], heapScore[(c - 1) >>> 1])) {
+                heapScore[c] = heapScore[(c - 1) >>> 1];
+                heapTask[c] = heapTask[(c - 1) >>> 1];
+                c = (c - 1) >>> 1;
+            }
+            heapScore[c] = sc;
+            heapTask[c] = j;
+        } else if (n > 0 && before(i, heapTask[0], heapScore[0], j, sc)) {
+            int c = 0;
+            while (true) {
+                int child = 2 * c + 1;
+                if (child >= n) break;
+                if (child + 1 < n && before(i, heapTask[child + 1], heapScore[child + 1], heapTask[child], heapScore[child])) child++;
+                if (!before(i, heapTask[child], heapScore[child], j, sc)) break;
+                heapScore[c] = heapScore[child];
+                heapTask[c] = heapTask[child];
+                c = child;
+            }
+            heapScore[c] = sc;
+            heapTask[c] = j;
+        }
+        return n;
+    }
+
+    private static boolean before(int i, int a, double sa, int b, double sb) {
+        if (sa != sb) return sa < sb;
+        return mix(i, a) < mix(i, b);
+    }
+
+    private static long mix(int i, int j) {
+        long z = ((long)i << 32 | (j & 0xffffffffL)) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Shortest augmenting paths with row and column potentials over the sparse candidate edges. Costs are negated
+     * scores, every researcher may also take a private "unassigned" column at cost zero, and a task column that has
+     * never been matched keeps potential zero.
+     */
+    private static final class AugmentingPaths {
+        private final int[][] cand;
+        private final double[][] value;
+        private final int real;
+        private final int[] colOf;
+        private final int[] rowOf;
+        private final double[] u;
+        private final double[] v;
+        private final double[] dist;
+        private final int[] pred;
+        private final boolean[] done;
+        private final int[] touched;
+        private final int[] scanned;
+        private int touchedCount;
+        private double[] heapKey = new double[64];
+        private int[] heapCol = new int[64];
+        private int heapSize;
+
+        AugmentingPaths(int[][] cand, double[][] value, int real) {
+            this.cand = cand;
+            this.value = value;
+            this.real = real;
+            int rows = cand.length;
+            int cols = real + rows;
+            this.colOf = new int[rows];
+            this.rowOf = new int[cols];
+            Arrays.fill(rowOf, FREE);
+            this.u = new double[rows];
+            this.v = new double[cols];
+            this.dist = new double[cols];
+            Arrays.fill(dist, Double.POSITIVE_INFINITY);
+            this.pred = new int[cols];
+            this.done = new boolean[cols];
+            this.touched = new int[cols];
+            this.scanned = new int[cols];
+        }
+
+        int[] run() {
+            for (int s = 0; s < cand.length; s++) augment(s);
+            for (int i = 0; i < cand.length; i++) if (colOf[i] >= real) colOf[i] = FREE;
+            return colOf;
+        }
+
+        /** Score the researcher is guaranteed by the dual solution; no left-out task may beat it. */
+        double profit(int i) {
+            return -u[i];
+        }
+
+        private void augment(int s) {
+            double tight = -v[real + s];
+            for (int k = 0; k < cand[s].length; k++) tight = Math.min(tight, -value[s][k] - v[cand[s][k]]);
+            u[s] = tight;
+            relax(s, 0);
+            int sink = FREE;
+            double d = 0;
+            int finalized = 0;
+            while (heapSize > 0) {
+                int j = heapCol[0];
+                d = heapKey[0];
+                pop();
+                if (done[j] || d > dist[j]) continue;
+                done[j] = true;
+                scanned[finalized++] = j;
+                if (rowOf[j] == FREE) {
+                    sink = j;
+                    break;
+                }
+                relax(rowOf[j], d);
+            }
+            u[s] += d;
+            for (int k = 0; k < finalized; k++) {
+                int j = scanned[k];
+                if (j == sink) continue;
+                u[rowOf[j]] += d - dist[j];
+                v[j] -= d - dist[j];
+            }
+            for (int j = sink; ; ) {
+                int i = pred[j];
+                int prev = i == s ? FREE : colOf[i];
+                rowOf[j] = i;
+                colOf[i] = j;
+                if (i == s) break;
+                j = prev;
+            }
+            for (int k = 0; k < touchedCount; k++) {
+                int j = touched[k];
+                dist[j] = Double.POSITIVE_INFINITY;
+                done[j] = false;
+            }
+            touchedCount = 0;
+            heapSize = 0;
+        }
+
+        private void relax(int i, double base) {
+            int[] c = cand[i];
+            double[] val = value[i];
+            for (int k = 0; k < c.length; k++) offer(c[k], i, base + Math.max(0, -val[k] - u[i] - v[c[k]]));
+            offer(real + i, i, base + Math.max(0, -u[i] - v[real + i]));
+        }
+
+        private void offer(int j, int i, double d) {
+            if (done[j] || d >= dist[j]) return;
+            if (dist[j] == Double.POSITIVE_INFINITY) touched[touchedCount++] = j;
+            dist[j] = d;
+            pred[j] = i;
+            push(j, d);
+        }
+
+        private void push(int j, double d) {
+            if (heapSize == heapKey.length) {
+                heapKey = Arrays.copyOf(heapKey, heapSize * 2);
+                heapCol = Arrays.copyOf(heapCol, heapSize * 2);
+            }
+            int c = heapSize++;
+            while (c > 0 && heapKey[(c - 1) >>> 1] > d) {
+                heapKey[c] = heapKey[(c - 1) >>> 1];
+                heapCol[c] = heapCol[(c - 1) >>> 1];
+                c = (c - 1) >>> 1;
+            }
+            heapKey[c] = d;
+            heapCol[c] = j;
+        }
+
+        private void pop() {
+            double d = heapKey[--heapSize];
+            int j = heapCol[heapSize];
+            int c = 0;
+            while (true) {
+                int child = 2 * c + 1;
+                if (child >= heapSize) break;
+                if (child + 1 < heapSize && heapKey[child + 1] < heapKey[child]) child++;
+                if (heapKey[child] >= d) break;
+                heapKey[c] = heapKey[child];
+                heapCol[c] = heapCol[child];
+                c = child;
+            }
+            if (heapSize > 0) {
+                heapKey[c] = d;
+                heapCol[c] = j;
+            }
+        }
+    }
+}
@@ -8,22 +8,34 @@ public class Budget {
         private final double cost;
         private final double value;
         private final String category;
+        private final double hours;
 
         public Item(String name, double cost, double value, String category) {
+            this(name, cost, value, category, 0);
+        }
+
+        public Item(String name, double cost, double value, String category, double hours) {
             this.name = name == null ? "" : name;
             this.cost = cost < 0 ? 0 : cost;
             this.value = value < 0 ? 0 : value;
             this.category = category == null ? "GENERAL" : category;
+            this.hours = hours < 0 ? 0 : hours;
         }
 
         public String getName() { return name; }
         public double getCost() { return cost; }
         public double getValue() { return value; }
         public String getCategory() { return category; }
+        public double getHours() { return hours; }
     }
 
     private final List<Item> items;
+    private final Map<String, double[]> categories = new LinkedHashMap<>();
+    private double totalCost;
+    private double totalValue;
+    private double totalHours;
     private double reserveRatio;
+    private volatile BudgetObserver observer;
 
     public Budget() {
         this.items = new ArrayList<>();
@@ -32,39 +44,84 @@ public class Budget {
 
     public void add(Item item) {
         if (item == null) return;
-        items.add(item);
+        synchronized (this) {
+            items.add(item);
+            totalCost += item.getCost();
+            totalValue += item.getValue();
+            totalHours += item.getHours();
+            double[] c = categories.computeIfAbsent(item.getCategory(), k -> new double[3]);
+            c[0] += item.getCost();
+            c[1] += item.getValue();
+            c[2]++;
+        }
+        BudgetObserver o = observer;
+        if (o != null) o.itemAdded(item);
+    }
+
+    synchronized double reserveRatio() { return reserveRatio; }
+    void setObserver(BudgetObserver o) { this.observer = o; }
+
+    public synchronized List<Item> getItems() { return new ArrayList<>(items); }
+
+    public synchronized double totalCost() { return totalCost; }
+    public synchronized double totalValue() { return totalValue; }
+    public synchronized double totalHours() { return totalHours; }
+
+    public synchronized Set<String> getCategories() { return new LinkedHashSet<>(categories.keySet()); }
+
+    public synchronized double categoryCost(String category) {
+        double[] c = categories.get(category);
+        return c == null ? 0 : c[0];
     }
 
-    public List<Item> getItems() { return new ArrayList<>(items); }
+    public synchronized double categoryValue(String category) {
+        double[] c = categories.get(category);
+        return c == null ? 0 : c[1];
+    }
 
-    public double totalCost() {
-        double s = 0;
-        for (Item i : items) s += i.getCost();
-        return s;
+    public synchronized int categoryCount(String category) {
+        double[] c = categories.get(category);
+        return c == null ? 0 : (int)c[2];
     }
 
-    public double totalValue() {
-        double s = 0;
-        for (Item i : items) s += i.getValue();
-        return s;
+    public synchronized Map<String, Double> costByCategory() {
+        Map<String, Double> m = new LinkedHashMap<>();
+        for (Map.Entry<String, double[]> e : categories.entrySet()) m.put(e.getKey(), e.getValue()[0]);
+        return m;
     }
 
     public double forecastCost(double inflationRate) {
+        return forecast(totalCost(), inflationRate);
+    }
+
+    public synchronized double requiredReserve() {
+        return reserve(totalCost, reserveRatio);
+    }
+
+    public void setReserveRatio(double r) {
+        r = clampReserveRatio(r);
+        synchronized (this) {
+            this.reserveRatio = r;
+        }
+        BudgetObserver o = observer;
+        if (o != null) o.reserveRatioChanged(r);
+    }
+
+    static double forecast(double cost, double inflationRate) {
         if (inflationRate < -0.5) inflationRate = -0.5;
         if (inflationRate > 1.0) inflationRate = 1.0;
-        return totalCost() * (1 + inflationRate);
+        return cost * (1 + inflationRate);
     }
 
-    public double requiredReserve() {
-        double base = totalCost();
-        double r = base * reserveRatio;
+    static double reserve(double cost, double ratio) {
+        double r = cost * ratio;
         if (r < 1000) r = 1000;
         return r;
     }
 
-    public void setReserveRatio(double r) {
+    static double clampReserveRatio(double r) {
         if (r < 0) r = 0;
         if (r > 0.5) r = 0.5;
-        this.reserveRatio = r;
+        return r;
     }
 }
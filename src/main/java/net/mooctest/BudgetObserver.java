@@ -0,0 +1,7 @@
+package net.mooctest;
+
+interface BudgetObserver {
+    void itemAdded(Budget.Item item);
+
+    void reserveRatioChanged(double ratio);
+}
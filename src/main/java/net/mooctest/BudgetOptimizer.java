@@ -1,25 +1,53 @@
 package net.mooctest;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 public class BudgetOptimizer {
+    public enum Engine { DP, FPTAS, BRANCH_AND_BOUND, GREEDY }
+
+    public static final double DEFAULT_EPSILON = 0.05;
+    public static final long DEFAULT_NODE_LIMIT = 20_000_000L;
+
     public static final class Selection {
         private final List<Budget.Item> items;
         private final double totalCost;
         private final double totalValue;
+        private final double totalHours;
+        private final double upperBound;
 
         public Selection(List<Budget.Item> items, double totalCost, double totalValue) {
+            this(items, totalCost, totalValue, Double.NaN);
+        }
+
+        public Selection(List<Budget.Item> items, double totalCost, double totalValue, double upperBound) {
             this.items = items;
             this.totalCost = totalCost;
             this.totalValue = totalValue;
+            double h = 0;
+            for (Budget.Item it : items) h += it.getHours();
+            this.totalHours = h;
+            this.upperBound = upperBound;
         }
 
         public List<Budget.Item> getItems() { return items; }
         public double getTotalCost() { return totalCost; }
         public double getTotalValue() { return totalValue; }
+        public double getTotalHours() { return totalHours; }
+        public double getUpperBound() { return upperBound; }
+        public boolean isProvenOptimal() { return upperBound <= totalValue; }
     }
 
     public Selection optimize(Budget budget, double limit) {
+        Metrics.Timer t = Metrics.start("budget.optimize.dp");
+        try {
+            return optimizeDp(budget, limit);
+        } finally {
+            t.close();
+        }
+    }
+
+    private Selection optimizeDp(Budget budget, double limit) {
         if (budget == null) throw new DomainException("budget null");
         if (limit < 0) limit = 0;
         List<Budget.Item> items = budget.getItems();
@@ -56,6 +84,259 @@ public class BudgetOptimizer {
             }
         }
         Collections.reverse(picked);
-        return new Selection(picked, totalCost, totalValue);
+        return new Selection(picked, totalCost, totalValue, totalValue);
+    }
+
+    public Selection optimize(Budget budget, double limit, Engine engine) {
+        if (engine == null) engine = Engine.DP;
+        if (engine == Engine.DP) return optimize(budget, limit);
+        Metrics.Timer t = Metrics.start("budget.optimize." + engine.name().toLowerCase(Locale.ROOT));
+        try {
+            switch (engine) {
+                case FPTAS: return optimizeFptas(budget, limit, DEFAULT_EPSILON);
+                case BRANCH_AND_BOUND: return optimizeBranchAndBound(budget, limit);
+                default: return optimizeGreedy(budget, limit);
+            }
+        } finally {
+            t.close();
+        }
+    }
+
+    public Selection optimize(Budget budget, double costLimit, double hourLimit, Map<String, Double> categoryCaps) {
+        return optimize(budget, costLimit, hourLimit, categoryCaps, ForkJoinPool.commonPool(), DEFAULT_NODE_LIMIT);
+    }
+
+    public Selection optimize(Budget budget, double costLimit, double hourLimit, Map<String, Double> categoryCaps,
+                              ForkJoinPool pool, long nodeLimit) {
+        if (budget == null) throw new DomainException("budget null");
+        if (nodeLimit <= 0) throw new DomainException("node limit must be positive");
+        Metrics.Timer t = Metrics.start("budget.optimize.multi");
+        try {
+            Selection s = new ConstrainedKnapsack(budget.getItems(), costLimit, hourLimit, categoryCaps, nodeLimit).solve(pool);
+            return new Selection(inBudgetOrder(budget, s.getItems()), s.getTotalCost(), s.getTotalValue(), s.getUpperBound());
+        } finally {
+            t.close();
+        }
+    }
+
+    public Selection optimizeGreedy(Budget budget, double limit) {
+        List<Budget.Item> items = candidates(budget, limit);
+        if (limit < 0) limit = 0;
+        items.sort(BY_RATIO);
+        List<Budget.Item> picked = new ArrayList<>();
+        double cost = 0;
+        double value = 0;
+        Budget.Item bestSingle = null;
+        for (Budget.Item it : items) {
+            if (bestSingle == null || it.getValue() > bestSingle.getValue()) bestSingle = it;
+            if (cost + it.getCost() <= limit) {
+                picked.add(it);
+                cost += it.getCost();
+                value += it.getValue();
+            }
+        }
+        if (bestSingle != null && bestSingle.getValue() > value) {
+            return selection(Collections.singletonList(bestSingle));
+        }
+        return new Selection(inBudgetOrder(budget, picked), cost, value);
+    }
+
+    public Selection optimizeFptas(Budget budget, double limit, double epsilon) {
+        if (!(epsilon > 0) || epsilon >= 1) throw new DomainException("epsilon out of range");
+        List<Budget.Item> items = candidates(budget, limit);
+        int n = items.size();
+        if (n == 0) return new Selection(new ArrayList<>(), 0, 0);
+        double lower = optimizeGreedy(budget, limit).getTotalValue();
+        double scale = epsilon * lower / n;
+        int[] profit = new int[n];
+        for (int i = 0; i < n; i++) {
+            profit[i] = (int)Math.floor(items.get(i).getValue() / scale);
+        }
+        // greedy is a 1/2-approximation, so no feasible set scales above 2n/epsilon
+        long bound = 0;
+        for (int p : profit) bound += p;
+        int maxProfit = (int)Math.min(bound, (long)Math.ceil(2.0 * n / epsilon) + n);
+        int m = 0;
+        int[] gain = new int[n];
+        double[] cost = new double[n];
+        int[] item = new int[n];
+        for (int i = 0; i < n; i++) {
+            if (profit[i] == 0) continue;
+            gain[m] = profit[i];
+            cost[m] = items.get(i).getCost();
+            item[m++] = i;
+        }
+        double[] minCost = minCostByProfit(gain, cost, 0, m, maxProfit, limit);
+        int q = maxProfit;
+        while (q > 0 && minCost[q] == Double.POSITIVE_INFINITY) q--;
+        List<Budget.Item> picked = new ArrayList<>();
+        List<Integer> chosen = new ArrayList<>();
+        reconstruct(gain, cost, 0, m, q, limit, chosen);
+        for (int k : chosen) picked.add(items.get(item[k]));
+        Selection approx = selection(inBudgetOrder(budget, picked));
+        if (approx.getTotalValue() < lower) return optimizeGreedy(budget, limit);
+        return approx;
+    }
+
+    // cheapest cost reaching each scaled profit with items [from, to); one row, so memory stays O(maxProfit)
+    private static double[] minCostByProfit(int[] p, double[] w, int from, int to, int maxProfit, double limit) {
+        double[] minCost = new double[maxProfit + 1];
+        Arrays.fill(minCost, Double.POSITIVE_INFINITY);
+        minCost[0] = 0;
+        int reach = 0;
+        for (int i = from; i < to; i++) {
+            int top = Math.min(maxProfit, reach + p[i]);
+            for (int q = top; q >= p[i]; q--) {
+                double cand = minCost[q - p[i]] + w[i];
+                if (cand < minCost[q] && cand <= limit) minCost[q] = cand;
+            }
+            reach = top;
+        }
+        return minCost;
+    }
+
+    // Hirschberg-style recovery: split the items, find how the target profit divides between the halves, recurse
+    private static void reconstruct(int[] p, double[] w, int from, int to, int target, double limit, List<Integer> out) {
+        if (target <= 0 || from >= to) return;
+        if (to - from == 1) {
+            if (p[from] == target) out.add(from);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        double[] left = minCostByProfit(p, w, from, mid, target, limit);
+        double[] right = minCostByProfit(p, w, mid, to, target, limit);
+        int split = 0;
+        double best = Double.POSITIVE_INFINITY;
+        for (int q = 0; q <= target; q++) {
+            double c = left[q] + right[target - q];
+            if (c < best) {
+                best = c;
+                split = q;
+            }
+        }
+        left = null;
+        right = null;
+        reconstruct(p, w, from, mid, split, limit, out);
+        reconstruct(p, w, mid, to, target - split, limit, out);
+    }
+
+    public Selection optimizeBranchAndBound(Budget budget, double limit) {
+        return optimizeBranchAndBound(budget, limit, DEFAULT_NODE_LIMIT);
+    }
+
+    /**
+     * Exact search over items in ratio order. When more than nodeLimit nodes are expanded the best selection so far
+     * is returned, carrying the root LP bound, so {@link Selection#isProvenOptimal()} tells the two cases apart.
+     */
+    public Selection optimizeBranchAndBound(Budget budget, double limit, long nodeLimit) {
+        if (nodeLimit <= 0) throw new DomainException("node limit must be positive");
+        List<Budget.Item> items = candidates(budget, limit);
+        if (limit < 0) limit = 0;
+        items.sort(BY_RATIO);
+        int n = items.size();
+        double[] w = new double[n];
+        double[] v = new double[n];
+        double[] prefixW = new double[n + 1];
+        double[] prefixV = new double[n + 1];
+        for (int i = 0; i < n; i++) {
+            w[i] = items.get(i).getCost();
+            v[i] = items.get(i).getValue();
+            prefixW[i + 1] = prefixW[i] + w[i];
+            prefixV[i + 1] = prefixV[i] + v[i];
+        }
+        Selection greedy = optimizeGreedy(budget, limit);
+        double bestValue = greedy.getTotalValue();
+        boolean[] best = null;
+        boolean[] x = new boolean[n];
+        double cw = 0;
+        double cv = 0;
+        int i = 0;
+        long nodes = 0;
+        boolean complete = true;
+        while (true) {
+            if (++nodes > nodeLimit) {
+                complete = false;
+                break;
+            }
+            if (i == n) {
+                if (cv > bestValue) {
+                    bestValue = cv;
+                    best = x.clone();
+                }
+            } else if (upperBound(i, limit - cw, w, v, prefixW, prefixV) + cv > bestValue + 1e-9) {
+                if (cw + w[i] <= limit) {
+                    x[i] = true;
+                    cw += w[i];
+                    cv += v[i];
+                }
+                i++;
+                continue;
+            }
+            int k = i - 1;
+            while (k >= 0 && !x[k]) k--;
+            if (k < 0) break;
+            x[k] = false;
+            cw -= w[k];
+            cv -= v[k];
+            i = k + 1;
+        }
+        Selection found = greedy;
+        if (best != null) {
+            List<Budget.Item> picked = new ArrayList<>();
+            for (int j = 0; j < n; j++) if (best[j]) picked.add(items.get(j));
+            found = selection(inBudgetOrder(budget, picked));
+        }
+        double bound = complete ? found.getTotalValue() : Math.max(found.getTotalValue(), upperBound(0, limit, w, v, prefixW, prefixV));
+        return new Selection(found.getItems(), found.getTotalCost(), found.getTotalValue(), bound);
+    }
+
+    private static double upperBound(int from, double room, double[] w, double[] v, double[] prefixW, double[] prefixV) {
+        int n = w.length;
+        double base = prefixW[from];
+        int lo = from;
+        int hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (prefixW[mid] - base <= room) lo = mid;
+            else hi = mid - 1;
+        }
+        double bound = prefixV[lo] - prefixV[from];
+        if (lo < n && w[lo] > 0) bound += v[lo] * (room - (prefixW[lo] - base)) / w[lo];
+        return bound;
+    }
+
+    private static final Comparator<Budget.Item> BY_RATIO = (a, b) -> {
+        int r = Double.compare(b.getValue() * a.getCost(), a.getValue() * b.getCost());
+        if (r != 0) return r;
+        return Double.compare(a.getCost(), b.getCost());
+    };
+
+    private static List<Budget.Item> candidates(Budget budget, double limit) {
+        if (budget == null) throw new DomainException("budget null");
+        List<Budget.Item> res = new ArrayList<>();
+        for (Budget.Item it : budget.getItems()) {
+            if (it.getValue() > 0 && it.getCost() <= limit) res.add(it);
+        }
+        return res;
+    }
+
+    private static List<Budget.Item> inBudgetOrder(Budget budget, List<Budget.Item> picked) {
+        Set<Budget.Item> chosen = Collections.newSetFromMap(new IdentityHashMap<>());
+        chosen.addAll(picked);
+        List<Budget.Item> res = new ArrayList<>(picked.size());
+        for (Budget.Item it : budget.getItems()) {
+            if (chosen.remove(it)) res.add(it);
+        }
+        return res;
+    }
+
+    private static Selection selection(List<Budget.Item> picked) {
+        double cost = 0;
+        double value = 0;
+        for (Budget.Item it : picked) {
+            cost += it.getCost();
+            value += it.getValue();
+        }
+        return new Selection(picked, cost, value);
     }
 }
@@ -0,0 +1,408 @@
+package net.mooctest;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+final class ConstrainedKnapsack {
+    static final int SUBGRADIENT_ITERATIONS = 300;
+    static final int MAX_SPLIT_DEPTH = 12;
+    static final int HEURISTIC_CORE = 64;
+    static final long HEURISTIC_NODE_LIMIT = 2_000_000L;
+
+    private static final double EPS = 1e-9;
+    private static final int COST = 0;
+    private static final int HOURS = 1;
+
+    private final Budget.Item[] items;
+    private final int n;
+    private final int dims;
+    private final double[] value;
+    private final double[] cost;
+    private final double[] hours;
+    private final int[] cat;
+    private final double[] catWeight;
+    private final double[] surrogate;
+    private final double[] lambda;
+    private final double[] mu;
+    private final AtomicLong incumbent = new AtomicLong(Double.doubleToLongBits(0));
+    private final long nodeLimit;
+    private double lagrangianBound;
+
+    ConstrainedKnapsack(List<Budget.Item> all, double costLimit, double hourLimit, Map<String, Double> caps, long nodeLimit) {
+        if (costLimit < 0) costLimit = 0;
+        if (hourLimit < 0) hourLimit = 0;
+        Map<String, Integer> capDim = new HashMap<>();
+        List<Double> capValues = new ArrayList<>();
+        if (caps != null) {
+            for (Map.Entry<String, Double> e : caps.entrySet()) {
+                if (e.getKey() == null || e.getValue() == null || e.getValue() == Double.POSITIVE_INFINITY) continue;
+                capDim.put(e.getKey(), capValues.size());
+                capValues.add(Math.max(0, e.getValue()));
+            }
+        }
+        List<Budget.Item> kept = new ArrayList<>();
+        for (Budget.Item it : all) {
+            if (!(it.getValue() > 0) || it.getCost() > costLimit || it.getHours() > hourLimit) continue;
+            Integer d = capDim.get(it.getCategory());
+            if (d != null && it.getCost() > capValues.get(d)) continue;
+            kept.add(it);
+        }
+        this.n = kept.size();
+        this.dims = 2 + capValues.size();
+        this.nodeLimit = nodeLimit;
+        double[] v = new double[n];
+        double[] c = new double[n];
+        double[] h = new double[n];
+        int[] k = new int[n];
+        double[] kw = new double[n];
+        for (int i = 0; i < n; i++) {
+            Budget.Item it = kept.get(i);
+            v[i] = it.getValue();
+            c[i] = normalized(it.getCost(), costLimit);
+            h[i] = normalized(it.getHours(), hourLimit);
+            Integer d = capDim.get(it.getCategory());
+            k[i] = d == null ? -1 : 2 + d;
+            kw[i] = d == null ? 0 : normalized(it.getCost(), capValues.get(d));
+        }
+        this.lambda = multipliers(v, c, h, k, kw);
+        double scale = 0;
+        for (double x : lambda) scale = Math.max(scale, x);
+        if (scale == 0) scale = 1;
+        this.mu = new double[dims];
+        for (int d = 0; d < dims; d++) mu[d] = lambda[d] + 1e-6 * scale;
+        Integer[] order = new Integer[n];
+        double[] s = new double[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+            s[i] = mu[COST] * c[i] + mu[HOURS] * h[i] + (k[i] < 0 ? 0 : mu[k[i]] * kw[i]);
+        }
+        Arrays.sort(order, (a, b) -> {
+            int r = Double.compare(v[b] * s[a], v[a] * s[b]);
+            return r != 0 ? r : Double.compare(s[a], s[b]);
+        });
+        this.items = new Budget.Item[n];
+        this.value = new double[n];
+        this.cost = new double[n];
+        this.hours = new double[n];
+        this.cat = new int[n];
+        this.catWeight = new double[n];
+        this.surrogate = new double[n];
+        for (int j = 0; j < n; j++) {
+            int i = order[j];
+            items[j] = kept.get(i);
+            value[j] = v[i];
+            cost[j] = c[i];
+            hours[j] = h[i];
+            cat[j] = k[i];
+            catWeight[j] = kw[i];
+            surrogate[j] = s[i];
+        }
+    }
+
+    private static double normalized(double amount, double limit) {
+        if (limit == Double.POSITIVE_INFINITY || amount == 0) return 0;
+        return amount / limit;
+    }
+
+    private double[] multipliers(double[] v, double[] c, double[] h, int[] k, double[] kw) {
+        double[] lambda = new double[dims];
+        double[] best = new double[dims];
+        double[] g = new double[dims];
+        double bound = 0;
+        for (double x : v) bound += x;
+        double lower = 0;
+        double theta = 2;
+        int stall = 0;
+        for (int iter = 0; iter < SUBGRADIENT_ITERATIONS; iter++) {
+            double l = 0;
+            for (int d = 0; d < dims; d++) {
+                l += lambda[d];
+                g[d] = -1;
+            }
+            double taken = 0;
+            for (int i = 0; i < n; i++) {
+                double reduced = v[i] - lambda[COST] * c[i] - lambda[HOURS] * h[i] - (k[i] < 0 ? 0 : lambda[k[i]] * kw[i]);
+                if (reduced <= 0) continue;
+                l += reduced;
+                taken += v[i];
+                g[COST] += c[i];
+                g[HOURS] += h[i];
+                if (k[i] >= 0) g[k[i]] += kw[i];
+            }
+            boolean feasible = true;
+            double norm = 0;
+            for (int d = 0; d < dims; d++) {
+                if (g[d] > EPS) feasible = false;
+                if (lambda[d] > 0 || g[d] > 0) norm += g[d] * g[d];
+            }
+            if (feasible) lower = Math.max(lower, taken);
+            if (l < bound - EPS) {
+                bound = l;
+                System.arraycopy(lambda, 0, best, 0, dims);
+                stall = 0;
+            } else if (++stall >= 10) {
+                theta /= 2;
+                stall = 0;
+            }
+            if (norm == 0 || bound - lower <= EPS * Math.max(1, bound)) break;
+            double target = lower > 0 ? lower : l / 2;
+            double step = theta * (l - target) / norm;
+            for (int d = 0; d < dims; d++) lambda[d] = Math.max(0, lambda[d] + step * g[d]);
+        }
+        this.lagrangianBound = bound;
+        return best;
+    }
+
+    BudgetOptimizer.Selection solve(ForkJoinPool pool) {
+        if (n == 0) return new BudgetOptimizer.Selection(new ArrayList<>(), 0, 0, 0);
+        double[] reduced = new double[n];
+        for (int i = 0; i < n; i++) {
+            reduced[i] = value[i] - lambda[COST] * cost[i] - lambda[HOURS] * hours[i] - (cat[i] < 0 ? 0 : lambda[cat[i]] * catWeight[i]);
+        }
+        boolean[] chosen = greedy();
+        double chosenValue = 0;
+        for (int i = 0; i < n; i++) if (chosen[i]) chosenValue += value[i];
+        incumbent.set(Double.doubleToLongBits(chosenValue));
+
+        // exact search over the items the relaxation is least sure about, everything else taken as the relaxation says
+        Integer[] byDoubt = new Integer[n];
+        for (int i = 0; i < n; i++) byDoubt[i] = i;
+        Arrays.sort(byDoubt, (a, b) -> Double.compare(Math.abs(reduced[a]), Math.abs(reduced[b])));
+        boolean[] inCore = new boolean[n];
+        int k = Math.min(n, HEURISTIC_CORE);
+        for (int j = 0; j < k; j++) inCore[byDoubt[j]] = true;
+        double[] res = full();
+        boolean[] x = new boolean[n];
+        double cv = 0;
+        int[] members = new int[k];
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            if (inCore[i]) {
+                members[m++] = i;
+            } else if (reduced[i] > 0 && fits(i, res)) {
+                take(i, res, x);
+                cv += value[i];
+            }
+        }
+        Search heuristic = new Search(new Core(members), 0, res, x, cv, new AtomicLong(), Math.min(nodeLimit, HEURISTIC_NODE_LIMIT));
+        heuristic.run();
+        if (heuristic.best != null && heuristic.bestValue > chosenValue) {
+            chosen = heuristic.best;
+            chosenValue = heuristic.bestValue;
+        }
+
+        // an item whose reduced profit exceeds the duality gap cannot change sides in any better solution
+        double gap = lagrangianBound - chosenValue + EPS * Math.max(1, lagrangianBound);
+        double[] res0 = full();
+        boolean[] x0 = new boolean[n];
+        double cv0 = 0;
+        int[] free = new int[n];
+        m = 0;
+        for (int i = 0; i < n; i++) {
+            if (reduced[i] > gap) {
+                if (!fits(i, res0)) return selection(chosen, chosenValue, chosenValue);
+                take(i, res0, x0);
+                cv0 += value[i];
+            } else if (reduced[i] >= -gap) {
+                free[m++] = i;
+            }
+        }
+        Core core = new Core(Arrays.copyOf(free, m));
+        double rootBound = Math.min(lagrangianBound, cv0 + core.bound(0, surrogateCapacity(res0)));
+
+        int depth = 0;
+        if (pool != null) {
+            int want = pool.getParallelism() * 8;
+            while ((1 << depth) < want && depth < MAX_SPLIT_DEPTH && depth < m) depth++;
+        }
+        int patterns = 1 << depth;
+        int split = depth;
+        double base = cv0;
+        AtomicLong nodes = new AtomicLong();
+        Search[] searches = new Search[patterns];
+        Parallel.forRange(pool, 0, patterns, 1, p -> {
+            int pattern = patterns - 1 - p;
+            double[] r = res0.clone();
+            boolean[] y = x0.clone();
+            double v = base;
+            for (int j = 0; j < split; j++) {
+                if ((pattern >>> (split - 1 - j) & 1) == 0) continue;
+                int i = core.items[j];
+                if (!fits(i, r)) return;
+                take(i, r, y);
+                v += value[i];
+            }
+            searches[p] = new Search(core, split, r, y, v, nodes, nodeLimit);
+            searches[p].run();
+        });
+
+        boolean truncated = false;
+        for (Search s : searches) {
+            if (s == null) continue;
+            truncated |= s.truncated;
+            if (s.best != null && s.bestValue > chosenValue) {
+                chosenValue = s.bestValue;
+                chosen = s.best;
+            }
+        }
+        return selection(chosen, chosenValue, truncated ? Math.max(chosenValue, rootBound) : chosenValue);
+    }
+
+    private BudgetOptimizer.Selection selection(boolean[] chosen, double total, double upper) {
+        List<Budget.Item> picked = new ArrayList<>();
+        double totalCost = 0;
+        for (int i = 0; i < n; i++) {
+            if (chosen[i]) {
+                picked.add(items[i]);
+                totalCost += items[i].getCost();
+            }
+        }
+        return new BudgetOptimizer.Selection(picked, totalCost, total, upper);
+    }
+
+    private boolean[] greedy() {
+        boolean[] x = new boolean[n];
+        double[] res = full();
+        for (int i = 0; i < n; i++) if (fits(i, res)) take(i, res, x);
+        return x;
+    }
+
+    private double[] full() {
+        double[] res = new double[dims];
+        Arrays.fill(res, 1);
+        return res;
+    }
+
+    private double surrogateCapacity(double[] res) {
+        double cap = 0;
+        for (int d = 0; d < dims; d++) cap += mu[d] * res[d];
+        return cap;
+    }
+
+    private boolean fits(int i, double[] res) {
+        if (cost[i] > res[COST] + EPS || hours[i] > res[HOURS] + EPS) return false;
+        return cat[i] < 0 || catWeight[i] <= res[cat[i]] + EPS;
+    }
+
+    private void take(int i, double[] res, boolean[] x) {
+        res[COST] -= cost[i];
+        res[HOURS] -= hours[i];
+        if (cat[i] >= 0) res[cat[i]] -= catWeight[i];
+        x[i] = true;
+    }
+
+    private void drop(int i, double[] res, boolean[] x) {
+        res[COST] += cost[i];
+        res[HOURS] += hours[i];
+        if (cat[i] >= 0) res[cat[i]] += catWeight[i];
+        x[i] = false;
+    }
+
+    private double incumbent() {
+        return Double.longBitsToDouble(incumbent.get());
+    }
+
+    private boolean offer(double v) {
+        while (true) {
+            long cur = incumbent.get();
+            if (Double.longBitsToDouble(cur) >= v) return false;
+            if (incumbent.compareAndSet(cur, Double.doubleToLongBits(v))) return true;
+        }
+    }
+
+    private final class Core {
+        final int[] items;
+        private final double[] prefixS;
+        private final double[] prefixV;
+
+        Core(int[] items) {
+            this.items = items;
+            this.prefixS = new double[items.length + 1];
+            this.prefixV = new double[items.length + 1];
+            for (int j = 0; j < items.length; j++) {
+                prefixS[j + 1] = prefixS[j] + surrogate[items[j]];
+                prefixV[j + 1] = prefixV[j] + value[items[j]];
+            }
+        }
+
+        double bound(int from, double room) {
+            int m = items.length;
+            double base = prefixS[from];
+            int lo = from;
+            int hi = m;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (prefixS[mid] - base <= room) lo = mid;
+                else hi = mid - 1;
+            }
+            double b = prefixV[lo] - prefixV[from];
+            if (lo < m && surrogate[items[lo]] > 0) b += value[items[lo]] * (room - (prefixS[lo] - base)) / surrogate[items[lo]];
+            return b;
+        }
+    }
+
+    private final class Search {
+        private final Core core;
+        private final int start;
+        private final double[] res;
+        private final boolean[] x;
+        private final AtomicLong nodes;
+        private final long limit;
+        private double cv;
+        private double room;
+        double bestValue;
+        boolean[] best;
+        boolean truncated;
+
+        Search(Core core, int start, double[] res, boolean[] x, double cv, AtomicLong nodes, long limit) {
+            this.core = core;
+            this.start = start;
+            this.res = res;
+            this.x = x;
+            this.cv = cv;
+            this.nodes = nodes;
+            this.limit = limit;
+            this.room = surrogateCapacity(res);
+        }
+
+        void run() {
+            int[] items = core.items;
+            int m = items.length;
+            int local = 0;
+            int j = start;
+            while (true) {
+                if (++local == 1024) {
+                    local = 0;
+                    if (nodes.addAndGet(1024) > limit) {
+                        truncated = true;
+                        return;
+                    }
+                }
+                if (j == m) {
+                    if (offer(cv)) {
+                        bestValue = cv;
+                        best = x.clone();
+                    }
+                } else if (cv + core.bound(j, room) > incumbent() + EPS) {
+                    int i = items[j];
+                    if (fits(i, res)) {
+                        take(i, res, x);
+                        cv += value[i];
+                        room -= surrogate[i];
+                    }
+                    j++;
+                    continue;
+                }
+                int k = j - 1;
+                while (k >= start && !x[items[k]]) k--;
+                if (k < start) return;
+                int i = items[k];
+                drop(i, res, x);
+                cv -= value[i];
+                room += surrogate[i];
+                j = k + 1;
+            }
+        }
+    }
+}
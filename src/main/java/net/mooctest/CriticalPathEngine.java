@@ -0,0 +1,291 @@
+package net.mooctest;
+
+import java.util.*;
+
+public class CriticalPathEngine {
+    private final Map<Task, Integer> index = new IdentityHashMap<>();
+    private Task[] tasks = new Task[16];
+    private int[][] preds = new int[16][];
+    private int[][] succs = new int[16][];
+    private int[] predCount = new int[16];
+    private int[] succCount = new int[16];
+    private int[] duration = new int[16];
+    private int[] est = new int[16];
+    private int[] tail = new int[16];
+    private boolean[] dirty = new boolean[16];
+    private int size;
+    private final TreeMap<Integer, Integer> finishes = new TreeMap<>();
+    private int appliedFinish = -1;
+    private final List<Integer> dirtyList = new ArrayList<>();
+
+    public CriticalPathEngine(Collection<Task> tasks) {
+        TaskGraph g = TaskGraph.of(tasks == null ? Collections.<Task>emptyList() : tasks);
+        int[] order = g.topologicalOrder();
+        for (int u : order) {
+            Task t = g.task(u);
+            int i = register(t);
+            for (int e = g.predecessorStart(u); e < g.predecessorEnd(u); e++) {
+                link(index.get(g.task(g.predecessor(e))), i);
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            est[i] = computeEst(i);
+            addFinish(est[i] + duration[i]);
+        }
+        for (int i = size - 1; i >= 0; i--) tail[i] = computeTail(i);
+    }
+
+    public int getProjectFinish() {
+        return finishes.isEmpty() ? 0 : finishes.lastKey();
+    }
+
+    public boolean contains(Task t) { return index.containsKey(t); }
+    public int getEst(Task t) { return est[indexOf(t)]; }
+    public int getEft(Task t) { int i = indexOf(t); return est[i] + duration[i]; }
+    public int getLft(Task t) { return getProjectFinish() - tail[indexOf(t)]; }
+    public int getLst(Task t) { int i = indexOf(t); return getProjectFinish() - tail[i] - duration[i]; }
+    public int getSlack(Task t) { return getLst(t) - getEst(t); }
+
+    public void addTask(Task t) {
+        if (t == null || index.containsKey(t)) return;
+        // post-order over untracked prerequisites with an explicit stack, so long chains cannot overflow
+        List<Integer> added = new ArrayList<>();
+        Deque<Task> path = new ArrayDeque<>();
+        Deque<Iterator<Task>> pending = new ArrayDeque<>();
+        Set<Task> onPath = Collections.newSetFromMap(new IdentityHashMap<>());
+        path.push(t);
+        pending.push(t.dependencySet().iterator());
+        onPath.add(t);
+        while (!path.isEmpty()) {
+            Iterator<Task> it = pending.peek();
+            Task next = null;
+            while (it.hasNext()) {
+                Task d = it.next();
+                if (onPath.contains(d)) throw new DomainException("cycle detected");
+                if (!index.containsKey(d)) {
+                    next = d;
+                    break;
+                }
+            }
+            if (next != null) {
+                path.push(next);
+                pending.push(next.dependencySet().iterator());
+                onPath.add(next);
+                continue;
+            }
+            pending.pop();
+            Task u = path.pop();
+            onPath.remove(u);
+            int i = register(u);
+            for (Task d : u.dependencySet()) link(index.get(d), i);
+            est[i] = computeEst(i);
+            addFinish(est[i] + duration[i]);
+            markDirty(i);
+            added.add(i);
+        }
+        propagateBackward(added);
+    }
+
+    public void setDuration(Task t, int d) {
+        int i = indexOf(t);
+        t.setDuration(d);
+        int nd = t.getDuration();
+        if (nd == duration[i]) return;
+        removeFinish(est[i] + duration[i]);
+        duration[i] = nd;
+        addFinish(est[i] + duration[i]);
+        markDirty(i);
+        propagateForward(i);
+        propagateBackward(i);
+    }
+
+    public boolean addDependency(Task t, Task dep) {
+        int i = indexOf(t);
+        if (dep == null || dep == t) return false;
+        if (!index.containsKey(dep)) addTask(dep);
+        if (t.dependsOn(dep)) return false;
+        if (!t.addDependency(dep)) throw new DomainException("cycle detected");
+        link(index.get(dep), i);
+        propagateForward(i);
+        propagateBackward(i);
+        return true;
+    }
+
+    public int apply() {
+        int finish = getProjectFinish();
+        int written = 0;
+        if (finish != appliedFinish) {
+            for (int i = 0; i < size; i++) write(i, finish);
+            written = size;
+        } else {
+            for (int i : dirtyList) write(i, finish);
+            written = dirtyList.size();
+        }
+        for (int i : dirtyList) dirty[i] = false;
+        dirtyList.clear();
+        appliedFinish = finish;
+        return written;
+    }
+
+    private void write(int i, int finish) {
+        int lft = finish - tail[i];
+        tasks[i].setSchedule(est[i], est[i] + duration[i], lft - duration[i], lft);
+    }
+
+    private int indexOf(Task t) {
+        Integer i = t == null ? null : index.get(t);
+        if (i == null) throw new DomainException("task not tracked");
+        return i;
+    }
+
+    private int register(Task t) {
+        if (size == tasks.length) grow();
+        int i = size++;
+        tasks[i] = t;
+        preds[i] = new int[2];
+        succs[i] = new int[2];
+        duration[i] = t.getDuration();
+        index.put(t, i);
+        return i;
+    }
+
+    private void grow() {
+        int cap = tasks.length * 2;
+        tasks = Arrays.copyOf(tasks, cap);
+        preds = Arrays.copyOf(preds, cap);
+        succs = Arrays.copyOf(succs, cap);
+        predCount = Arrays.copyOf(predCount, cap);
+        succCount = Arrays.copyOf(succCount, cap);
+        duration = Arrays.copyOf(duration, cap);
+        est = Arrays.copyOf(est, cap);
+        tail = Arrays.copyOf(tail, cap);
+        dirty = Arrays.copyOf(dirty, cap);
+    }
+
+    private void link(int p, int s) {
+        if (succCount[p] == succs[p].length) succs[p] = Arrays.copyOf(succs[p], succCount[p] * 2);
+        succs[p][succCount[p]++] = s;
+        if (predCount[s] == preds[s].length) preds[s] = Arrays.copyOf(preds[s], predCount[s] * 2);
+        preds[s][predCount[s]++] = p;
+    }
+
+    private int computeEst(int i) {
+        int start = 0;
+        int[] ps = preds[i];
+        for (int k = 0; k < predCount[i]; k++) start = Math.max(start, est[ps[k]] + duration[ps[k]]);
+        return start;
+    }
+
+    private int computeTail(int i) {
+        int t = 0;
+        int[] ss = succs[i];
+        for (int k = 0; k < succCount[i]; k++) t = Math.max(t, duration[ss[k]] + tail[ss[k]]);
+        return t;
+    }
+
+    private void propagateForward(int from) {
+        IntHeap heap = new IntHeap(tasks, false);
+        heap.push(from);
+        while (!heap.isEmpty()) {
+            int u = heap.pop();
+            int start = computeEst(u);
+            if (start == est[u] && u != from) continue;
+            if (start != est[u]) {
+                removeFinish(est[u] + duration[u]);
+                est[u] = start;
+                addFinish(est[u] + duration[u]);
+                markDirty(u);
+            }
+            for (int k = 0; k < succCount[u]; k++) heap.push(succs[u][k]);
+        }
+    }
+
+    private void propagateBackward(int from) {
+        propagateBackward(Collections.singletonList(from));
+    }
+
+    private void propagateBackward(List<Integer> from) {
+        IntHeap heap = new IntHeap(tasks, true);
+        for (int f : from) {
+            for (int k = 0; k < predCount[f]; k++) heap.push(preds[f][k]);
+        }
+        while (!heap.isEmpty()) {
+            int u = heap.pop();
+            int t = computeTail(u);
+            if (t == tail[u]) continue;
+            tail[u] = t;
+            markDirty(u);
+            for (int k = 0; k < predCount[u]; k++) heap.push(preds[u][k]);
+        }
+    }
+
+    private void markDirty(int i) {
+        if (!dirty[i]) {
+            dirty[i] = true;
+            dirtyList.add(i);
+        }
+    }
+
+    private void addFinish(int f) {
+        finishes.merge(f, 1, Integer::sum);
+    }
+
+    private void removeFinish(int f) {
+        Integer c = finishes.get(f);
+        if (c == null) return;
+        if (c == 1) finishes.remove(f);
+        else finishes.put(f, c - 1);
+    }
+
+    private static final class IntHeap {
+        private final Task[] key;
+        private final boolean max;
+        private final BitSet queued = new BitSet();
+        private int[] heap = new int[16];
+        private int n;
+
+        IntHeap(Task[] key, boolean max) {
+            this.key = key;
+            this.max = max;
+        }
+
+        boolean isEmpty() { return n == 0; }
+
+        void push(int v) {
+            if (queued.get(v)) return;
+            queued.set(v);
+            if (n == heap.length) heap = Arrays.copyOf(heap, n * 2);
+            int i = n++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(v, heap[parent])) break;
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = v;
+        }
+
+        int pop() {
+            int top = heap[0];
+            queued.clear(top);
+            int last = heap[--n];
+            int i = 0;
+            while (true) {
+                int c = 2 * i + 1;
+                if (c >= n) break;
+                if (c + 1 < n && before(heap[c + 1], heap[c])) c++;
+                if (!before(heap[c], last)) break;
+                heap[i] = heap[c];
+                i = c;
+            }
+            if (n > 0) heap[i] = last;
+            return top;
+        }
+
+        private boolean before(int a, int b) {
+            long ra = key[a].rank();
+            long rb = key[b].rank();
+            return max ? ra > rb : ra < rb;
+        }
+    }
+}
@@ -3,16 +3,37 @@ package net.mooctest;
 import java.util.concurrent.atomic.AtomicLong;
 
 public final class IdGenerator {
-    private static final AtomicLong COUNTER = new AtomicLong(System.nanoTime());
+    public static final long EPOCH_MILLIS = 1577836800000L;
+    public static final int SLOT_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+
+    private static final AtomicLong LAST_BLOCK = new AtomicLong();
+    private static final ThreadLocal<long[]> BLOCK = ThreadLocal.withInitial(() -> new long[2]);
 
     private IdGenerator() {}
 
     public static long nextId() {
-        long base = System.currentTimeMillis();
-        long c = COUNTER.incrementAndGet();
-        long id = (base << 20) ^ c;
-        if (id < 0) id = -id;
-        return id;
+        long[] b = BLOCK.get();
+        if (b[0] == b[1]) {
+            long block = reserveBlock();
+            b[0] = block << SEQUENCE_BITS;
+            b[1] = b[0] + (1L << SEQUENCE_BITS);
+        }
+        long id = b[0]++;
+        return id == 0 ? nextId() : id;
+    }
+
+    public static long timestampOf(long id) {
+        return (id >>> (SLOT_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    private static long reserveBlock() {
+        long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SLOT_BITS;
+        while (true) {
+            long last = LAST_BLOCK.get();
+            long next = Math.max(last + 1, now);
+            if (LAST_BLOCK.compareAndSet(last, next)) return next;
+        }
     }
 
     public static String nextIdStr() {
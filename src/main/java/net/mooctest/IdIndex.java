@@ -0,0 +1,64 @@
+package net.mooctest;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Id-keyed store that iterates in insertion order. Writers must be serialized by the owner;
+ * readers never lock and iterate the entries that were published when iteration began.
+ */
+final class IdIndex<V> {
+    private final Map<Long, Integer> slots = new ConcurrentHashMap<>();
+    private volatile AtomicReferenceArray<V> values = new AtomicReferenceArray<>(16);
+    private volatile int size;
+
+    private final Collection<V> view = new AbstractCollection<V>() {
+        @Override
+        public Iterator<V> iterator() {
+            int n = size;
+            AtomicReferenceArray<V> vs = values;
+            return new Iterator<V>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() { return next < n; }
+
+                @Override
+                public V next() {
+                    if (next >= n) throw new NoSuchElementException();
+                    return vs.get(next++);
+                }
+            };
+        }
+
+        @Override
+        public int size() { return size; }
+    };
+
+    V get(long id) {
+        Integer s = slots.get(id);
+        return s == null ? null : values.get(s);
+    }
+
+    /** Returns the value previously stored under id; a replaced value keeps its original position. */
+    V put(long id, V v) {
+        Integer s = slots.get(id);
+        if (s != null) return values.getAndSet(s, v);
+        int n = size;
+        AtomicReferenceArray<V> vs = values;
+        if (n == vs.length()) {
+            AtomicReferenceArray<V> grown = new AtomicReferenceArray<>(n * 2);
+            for (int i = 0; i < n; i++) grown.set(i, vs.get(i));
+            values = vs = grown;
+        }
+        vs.set(n, v);
+        slots.put(id, n);
+        size = n + 1;
+        return null;
+    }
+
+    int size() { return size; }
+
+    Collection<V> values() { return view; }
+}
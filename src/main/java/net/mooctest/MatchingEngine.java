@@ -19,31 +19,80 @@ public class MatchingEngine {
         public double getScore() { return score; }
     }
 
-    public double score(Researcher r, Task t) {
-        double s = Math.min(r.getCapacity(), t.getDuration()) * 0.1 + r.getRating() * 0.05;
-        return s;
+    // null selects the built-in score, which the optimal matcher computes from its own capacity and rating snapshot
+    private final ScoreFunction scoreFunction;
+
+    public MatchingEngine() {
+        this(null);
+    }
+
+    public MatchingEngine(ScoreFunction scoreFunction) {
+        this.scoreFunction = scoreFunction;
+    }
+
+    public final double score(Researcher r, Task t) {
+        if (scoreFunction != null) return scoreFunction.score(r, t);
+        return score(r.getCapacity(), r.getRating(), t.getDuration());
+    }
+
+    static double score(int capacity, double rating, int duration) {
+        return Math.min(capacity, duration) * 0.1 + rating * 0.05;
+    }
+
+    boolean hasDefaultScore() {
+        return scoreFunction == null;
     }
 
     public List<Assignment> match(List<Researcher> researchers, List<Task> tasks) {
         List<Assignment> res = new ArrayList<>();
         if (researchers == null || tasks == null) return res;
+        Metrics.Timer timer = Metrics.start("matching.match");
+        try {
+            greedy(researchers, tasks, res);
+        } finally {
+            timer.close();
+        }
+        Metrics.count("matching.assignments", res.size());
+        return res;
+    }
+
+    private void greedy(List<Researcher> researchers, List<Task> tasks, List<Assignment> res) {
         tasks.sort(Comparator.comparing(Task::getPriority).reversed().thenComparing(Task::getDuration).reversed());
-        Set<Long> used = new HashSet<>();
+        SkillIndex index = SkillIndex.of(researchers);
+        long[] available = index.mask();
         for (Task t : tasks) {
             Assignment best = null;
-            for (Researcher r : researchers) {
-                if (used.contains(r.getId())) continue;
-                if (!r.canAssign(t)) continue;
-                double sc = score(r, t);
-                if (best == null || sc > best.score) best = new Assignment(t, r, sc);
+            int bestIndex = -1;
+            long[] candidates = index.candidates(t, available);
+            for (int w = 0; w < candidates.length; w++) {
+                for (long bits = candidates[w]; bits != 0; bits &= bits - 1) {
+                    int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    Researcher r = index.researcher(i);
+                    if (!r.canAssign(t)) continue;
+                    double sc = score(r, t);
+                    if (best == null || sc > best.score) {
+                        best = new Assignment(t, r, sc);
+                        bestIndex = i;
+                    }
+                }
             }
             if (best != null) {
                 best.researcher.assignTask(best.task);
                 best.task.assignTo(best.researcher.getId());
-                used.add(best.researcher.getId());
+                available[bestIndex >>> 6] &= ~(1L << bestIndex);
                 res.add(best);
             }
         }
-        return res;
+    }
+
+    public List<Assignment> matchOptimal(List<Researcher> researchers, List<Task> tasks) {
+        Metrics.Timer timer = Metrics.start("matching.matchOptimal");
+        try {
+            List<Assignment> res = new AssignmentSolver(this).solve(researchers, tasks);
+            Metrics.count("matching.assignments", res.size());
+            return res;
+        } finally {
+            timer.close();
+        }
     }
 }
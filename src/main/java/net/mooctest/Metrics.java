@@ -0,0 +1,73 @@
+package net.mooctest;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+public final class Metrics {
+    public static class Timer implements AutoCloseable {
+        private final MetricsSink sink;
+        private final String name;
+        private final long start;
+        private final long allocated;
+
+        Timer(MetricsSink sink, String name) {
+            this.sink = sink;
+            this.name = name;
+            this.allocated = allocatedBytes();
+            this.start = System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            long nanos = System.nanoTime() - start;
+            long bytes = ALLOCATION == null ? -1 : allocatedBytes() - allocated;
+            sink.recordTime(name, nanos, bytes);
+        }
+    }
+
+    private static final com.sun.management.ThreadMXBean ALLOCATION = allocationBean();
+    private static final Timer NOOP = new Timer(null, null) {
+        @Override
+        public void close() {}
+    };
+    private static volatile MetricsSink sink;
+
+    private Metrics() {}
+
+    public static MetricsRegistry enable() {
+        MetricsRegistry r = new MetricsRegistry();
+        sink = r;
+        return r;
+    }
+
+    public static void setSink(MetricsSink s) { sink = s; }
+    public static MetricsSink getSink() { return sink; }
+    public static void disable() { sink = null; }
+    public static boolean isEnabled() { return sink != null; }
+
+    public static Timer start(String name) {
+        MetricsSink s = sink;
+        return s == null ? NOOP : new Timer(s, name);
+    }
+
+    public static void count(String name, long delta) {
+        MetricsSink s = sink;
+        if (s != null) s.increment(name, delta);
+    }
+
+    // per-thread counter, so work handed to a pool is not attributed to the caller
+    private static long allocatedBytes() {
+        return ALLOCATION == null ? 0 : ALLOCATION.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        try {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (!(bean instanceof com.sun.management.ThreadMXBean)) return null;
+            com.sun.management.ThreadMXBean b = (com.sun.management.ThreadMXBean)bean;
+            return b.isThreadAllocatedMemorySupported() && b.isThreadAllocatedMemoryEnabled() ? b : null;
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package net.mooctest;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public class MetricsRegistry implements MetricsSink {
+    public static final class TimerStats {
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+        private final long allocatedBytes;
+
+        TimerStats(long count, long totalNanos, long maxNanos, long allocatedBytes) {
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public long getCount() { return count; }
+        public long getTotalNanos() { return totalNanos; }
+        public long getMaxNanos() { return maxNanos; }
+        public double getMeanNanos() { return count == 0 ? 0 : totalNanos / (double)count; }
+        public long getAllocatedBytes() { return allocatedBytes; }
+        public double getBytesPerCall() { return count == 0 || allocatedBytes < 0 ? -1 : allocatedBytes / (double)count; }
+    }
+
+    private static final class Timing {
+        final LongAdder count = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAccumulator max = new LongAccumulator(Math::max, 0);
+        final LongAdder bytes = new LongAdder();
+        volatile boolean allocationKnown = true;
+    }
+
+    private final ConcurrentHashMap<String, Timing> timers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordTime(String name, long nanos, long allocatedBytes) {
+        Timing t = timers.computeIfAbsent(name, k -> new Timing());
+        t.count.increment();
+        t.nanos.add(nanos);
+        t.max.accumulate(nanos);
+        if (allocatedBytes < 0) t.allocationKnown = false;
+        else t.bytes.add(allocatedBytes);
+    }
+
+    @Override
+    public void increment(String name, long delta) {
+        counters.computeIfAbsent(name, k -> new LongAdder()).add(delta);
+    }
+
+    public TimerStats getTimer(String name) {
+        Timing t = timers.get(name);
+        if (t == null) return new TimerStats(0, 0, 0, 0);
+        return new TimerStats(t.count.sum(), t.nanos.sum(), t.max.get(), t.allocationKnown ? t.bytes.sum() : -1);
+    }
+
+    public long getCounter(String name) {
+        LongAdder a = counters.get(name);
+        return a == null ? 0 : a.sum();
+    }
+
+    public Set<String> getTimerNames() { return new TreeSet<>(timers.keySet()); }
+    public Set<String> getCounterNames() { return new TreeSet<>(counters.keySet()); }
+
+    public void reset() {
+        timers.clear();
+        counters.clear();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (String name : getTimerNames()) {
+            TimerStats s = getTimer(name);
+            sb.append(name).append(" count=").append(s.getCount())
+              .append(" meanMs=").append(String.format("%.3f", s.getMeanNanos() / 1e6))
+              .append(" maxMs=").append(String.format("%.3f", s.getMaxNanos() / 1e6))
+              .append(" bytes=").append(s.getAllocatedBytes()).append("\n");
+        }
+        for (String name : getCounterNames()) sb.append(name).append("=").append(getCounter(name)).append("\n");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,7 @@
+package net.mooctest;
+
+public interface MetricsSink {
+    void recordTime(String name, long nanos, long allocatedBytes);
+
+    void increment(String name, long delta);
+}
@@ -0,0 +1,138 @@
+package net.mooctest;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+final class OnlineTopologicalOrder {
+    private static final AtomicLong NEXT_RANK = new AtomicLong();
+    private static final AtomicLong NEXT_COMPONENT = new AtomicLong();
+    private static final Comparator<Task> BY_RANK = (a, b) -> Long.compare(a.rank(), b.rank());
+    // shared by edge inserts, which only serialize per connected graph; taken exclusively to read every rank at once
+    private static final ReentrantReadWriteLock RANKS = new ReentrantReadWriteLock();
+
+    /** Lock scope for one connected dependency graph; the smaller side is relabelled when two graphs join. */
+    static final class Component {
+        private final long id = NEXT_COMPONENT.incrementAndGet();
+        private List<Task> members;
+
+        Component(Task t) {
+            this.members = new ArrayList<>(1);
+            members.add(t);
+        }
+    }
+
+    private OnlineTopologicalOrder() {}
+
+    static long nextRank() {
+        return NEXT_RANK.incrementAndGet();
+    }
+
+    static boolean addEdge(Task from, Task to) {
+        RANKS.readLock().lock();
+        try {
+            while (true) {
+                Component a = from.component();
+                Component b = to.component();
+                Component first = a.id <= b.id ? a : b;
+                Component second = first == a ? b : a;
+                synchronized (first) {
+                    synchronized (second) {
+                        if (from.component() != a || to.component() != b) continue;
+                        if (!insert(from, to)) return false;
+                        if (a != b) merge(a, b);
+                        return true;
+                    }
+                }
+            }
+        } finally {
+            RANKS.readLock().unlock();
+        }
+    }
+
+    static void sortByRank(Task[] tasks) {
+        RANKS.writeLock().lock();
+        try {
+            Arrays.sort(tasks, BY_RANK);
+        } finally {
+            RANKS.writeLock().unlock();
+        }
+    }
+
+    static void sortByRank(List<Task> tasks) {
+        RANKS.writeLock().lock();
+        try {
+            tasks.sort(BY_RANK);
+        } finally {
+            RANKS.writeLock().unlock();
+        }
+    }
+
+    private static boolean insert(Task from, Task to) {
+        if (to.dependencySet().contains(from)) return false;
+        long lower = to.rank();
+        long upper = from.rank();
+        if (upper > lower) {
+            List<Task> forward = new ArrayList<>();
+            if (!collectForward(to, from, upper, forward)) return false;
+            List<Task> backward = collectBackward(from, lower);
+            reassign(backward, forward);
+        }
+        to.dependencySet().add(from);
+        from.dependentSet().add(to);
+        return true;
+    }
+
+    private static void merge(Component a, Component b) {
+        Component big = a.members.size() >= b.members.size() ? a : b;
+        Component small = big == a ? b : a;
+        for (Task t : small.members) t.setComponent(big);
+        big.members.addAll(small.members);
+        small.members = null;
+    }
+
+    private static boolean collectForward(Task start, Task target, long upper, List<Task> out) {
+        Set<Task> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Task> stack = new ArrayDeque<>();
+        stack.push(start);
+        seen.add(start);
+        while (!stack.isEmpty()) {
+            Task u = stack.pop();
+            out.add(u);
+            for (Task v : u.dependentSet()) {
+                if (v == target) return false;
+                if (v.rank() < upper && seen.add(v)) stack.push(v);
+            }
+        }
+        return true;
+    }
+
+    private static List<Task> collectBackward(Task start, long lower) {
+        List<Task> out = new ArrayList<>();
+        Set<Task> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Task> stack = new ArrayDeque<>();
+        stack.push(start);
+        seen.add(start);
+        while (!stack.isEmpty()) {
+            Task u = stack.pop();
+            out.add(u);
+            for (Task v : u.dependencySet()) {
+                if (v.rank() > lower && seen.add(v)) stack.push(v);
+            }
+        }
+        return out;
+    }
+
+    private static void reassign(List<Task> backward, List<Task> forward) {
+        backward.sort(BY_RANK);
+        forward.sort(BY_RANK);
+        long[] pool = new long[backward.size() + forward.size()];
+        int k = 0;
+        for (Task t : backward) pool[k++] = t.rank();
+        for (Task t : forward) pool[k++] = t.rank();
+        Arrays.sort(pool);
+        k = 0;
+        for (Task t : backward) t.setRank(pool[k++]);
+        for (Task t : forward) t.setRank(pool[k++]);
+    }
+}
@@ -0,0 +1,44 @@
+package net.mooctest;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+final class Parallel {
+    private Parallel() {}
+
+    static void forRange(ForkJoinPool pool, int from, int to, int grain, IntConsumer body) {
+        if (to <= from) return;
+        if (pool == null || to - from <= grain) {
+            for (int i = from; i < to; i++) body.accept(i);
+            return;
+        }
+        pool.invoke(new RangeTask(from, to, Math.max(1, grain), body));
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final IntConsumer body;
+
+        RangeTask(int from, int to, int grain, IntConsumer body) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > grain) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RangeTask(from, mid, grain, body), new RangeTask(mid, to, grain, body));
+                return;
+            }
+            for (int i = from; i < to; i++) body.accept(i);
+        }
+    }
+}
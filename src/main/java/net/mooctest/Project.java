@@ -1,61 +1,221 @@
 package net.mooctest;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 public class Project {
+    static final int SNAPSHOT_RETRIES = 16;
+
     private final long id;
-    private String name;
-    private final Map<Long, Task> tasks;
-    private final Map<Long, Researcher> researchers;
+    private volatile String name;
+    // insertion ordered, so getTasks() and getResearchers() list entries in the order they were added
+    private final IdIndex<Task> tasks;
+    private final IdIndex<Researcher> researchers;
     private final List<Risk> risks;
-    private Budget budget;
+    private volatile Budget budget;
+    private final AtomicLongArray statusTally = new AtomicLongArray(Task.Status.values().length);
+    private final AtomicLong scheduleVersion = new AtomicLong();
+    private final AtomicLong riskVersion = new AtomicLong();
+    // seqlock: odd while a writer holds writeLock, readers retry when it moved
+    private final AtomicLong seq = new AtomicLong();
+    private final Object writeLock = new Object();
+    private ProjectJournal journal;
+    private final ScenarioEngine scenarioEngine = new ScenarioEngine(this);
+    private final TaskObserver tally = new TaskObserver() {
+        @Override
+        public void statusChanged(Task t, Task.Status from, Task.Status to) {
+            synchronized (writeLock) {
+                seq.incrementAndGet();
+                statusTally.decrementAndGet(from.ordinal());
+                statusTally.incrementAndGet(to.ordinal());
+                // the CAS ran before this lock, so a later transition may already be journaled; record what holds now
+                if (journal != null) journal.statusChanged(t, t.getStatus());
+                seq.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void scheduleChanged(Task t) {
+            synchronized (writeLock) {
+                seq.incrementAndGet();
+                scheduleVersion.incrementAndGet();
+                if (journal != null) journal.taskChanged(t);
+                seq.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void fieldsChanged(Task t) {
+            synchronized (writeLock) {
+                seq.incrementAndGet();
+                if (journal != null) journal.taskChanged(t);
+                seq.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void dependencyAdded(Task t, Task dep) {
+            synchronized (writeLock) {
+                seq.incrementAndGet();
+                scheduleVersion.incrementAndGet();
+                if (journal != null) journal.dependencyAdded(t, dep);
+                seq.incrementAndGet();
+            }
+        }
+    };
+    private final BudgetObserver budgetLog = new BudgetObserver() {
+        @Override
+        public void itemAdded(Budget.Item item) {
+            synchronized (writeLock) {
+                seq.incrementAndGet();
+                if (journal != null) journal.itemAdded(item);
+                seq.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void reserveRatioChanged(double ratio) {
+            synchronized (writeLock) {
+                if (journal != null) journal.reserveRatioChanged(budget.reserveRatio());
+            }
+        }
+    };
 
     public Project(String name) {
-        this.id = IdGenerator.nextId();
+        this(IdGenerator.nextId(), name);
+    }
+
+    Project(long id, String name) {
+        this.id = id;
         this.name = name == null ? "" : name;
-        this.tasks = new LinkedHashMap<>();
-        this.researchers = new LinkedHashMap<>();
-        this.risks = new ArrayList<>();
+        this.tasks = new IdIndex<>();
+        this.researchers = new IdIndex<>();
+        this.risks = new CopyOnWriteArrayList<>();
         this.budget = new Budget();
+        budget.setObserver(budgetLog);
     }
 
     public long getId() { return id; }
     public String getName() { return name; }
-    public void setName(String n) { this.name = n == null ? "" : n; }
+    public void setName(String n) {
+        synchronized (writeLock) {
+            seq.incrementAndGet();
+            this.name = n == null ? "" : n;
+            if (journal != null) journal.renamed(name);
+            seq.incrementAndGet();
+        }
+    }
     public Budget getBudget() { return budget; }
-    public void setBudget(Budget b) { if (b != null) this.budget = b; }
+    public void setBudget(Budget b) {
+        synchronized (writeLock) {
+            if (b == null || b == budget) return;
+            seq.incrementAndGet();
+            budget.setObserver(null);
+            this.budget = b;
+            b.setObserver(budgetLog);
+            if (journal != null) journal.budgetReplaced(b);
+            seq.incrementAndGet();
+        }
+    }
 
     public Task addTask(Task t) {
         if (t == null) return null;
-        tasks.put(t.getId(), t);
+        synchronized (writeLock) {
+            seq.incrementAndGet();
+            Task old = tasks.put(t.getId(), t);
+            if (old != t) {
+                if (old != null) {
+                    old.removeObserver(tally);
+                    statusTally.decrementAndGet(old.getStatus().ordinal());
+                }
+                t.addObserver(tally);
+                statusTally.incrementAndGet(t.getStatus().ordinal());
+                scheduleVersion.incrementAndGet();
+                if (journal != null) journal.taskAdded(t);
+            }
+            seq.incrementAndGet();
+        }
         return t;
     }
 
     public Researcher addResearcher(Researcher r) {
         if (r == null) return null;
-        researchers.put(r.getId(), r);
+        synchronized (writeLock) {
+            seq.incrementAndGet();
+            researchers.put(r.getId(), r);
+            seq.incrementAndGet();
+        }
         return r;
     }
 
     public void addRisk(Risk r) {
-        if (r != null) risks.add(r);
+        if (r == null) return;
+        synchronized (writeLock) {
+            seq.incrementAndGet();
+            risks.add(r);
+            riskVersion.incrementAndGet();
+            if (journal != null) journal.riskAdded(r);
+            seq.incrementAndGet();
+        }
+    }
+
+    public ProjectSnapshot snapshot() {
+        for (int attempt = 0; attempt < SNAPSHOT_RETRIES; attempt++) {
+            long s = seq.get();
+            if ((s & 1) == 0) {
+                ProjectSnapshot snap = new ProjectSnapshot(this, s);
+                if (seq.get() == s) return snap;
+            }
+            Thread.yield();
+        }
+        synchronized (writeLock) {
+            return new ProjectSnapshot(this, seq.get());
+        }
+    }
+
+    long scheduleVersion() { return scheduleVersion.get(); }
+
+    void attachJournal(ProjectJournal j) {
+        synchronized (writeLock) {
+            this.journal = j;
+        }
+    }
+    long riskVersion() { return riskVersion.get(); }
+
+    void withWriteLock(Runnable action) {
+        synchronized (writeLock) {
+            action.run();
+        }
     }
 
     public Task getTask(long id) { return tasks.get(id); }
     public Researcher getResearcher(long id) { return researchers.get(id); }
-    public Collection<Task> getTasks() { return tasks.values(); }
-    public Collection<Researcher> getResearchers() { return researchers.values(); }
+    public Collection<Task> getTasks() { return Collections.unmodifiableCollection(tasks.values()); }
+    public Collection<Researcher> getResearchers() { return Collections.unmodifiableCollection(researchers.values()); }
     public List<Risk> getRisks() { return new ArrayList<>(risks); }
 
     public Map<Task.Status, Long> statusCounts() {
         Map<Task.Status, Long> m = new EnumMap<>(Task.Status.class);
-        for (Task.Status s : Task.Status.values()) m.put(s, 0L);
-        for (Task t : tasks.values()) m.put(t.getStatus(), m.get(t.getStatus()) + 1);
+        for (Task.Status s : Task.Status.values()) m.put(s, statusTally.get(s.ordinal()));
         return m;
     }
 
+    public long statusCount(Task.Status s) {
+        return s == null ? 0 : statusTally.get(s.ordinal());
+    }
+
     public int criticalPathDuration() {
-        return GraphUtils.longestPathDuration(tasks.values());
+        return snapshot().criticalPathDuration();
+    }
+
+    public ScheduleSimulator.Result simulateSchedule(Map<Task, ScheduleSimulator.Estimate> estimates, int iterations) {
+        return new ScheduleSimulator(snapshot().graph(), estimates).simulate(iterations);
+    }
+
+    public ScenarioEngine.ResultTable evaluateScenarios(List<ScenarioEngine.Scenario> scenarios) {
+        return scenarioEngine.evaluate(scenarios);
     }
 
     public List<MatchingEngine.Assignment> planAssignments() {
@@ -67,4 +227,9 @@ public class Project {
         RiskAnalyzer analyzer = new RiskAnalyzer();
         return analyzer.simulate(risks, iterations);
     }
+
+    public RiskAnalyzer.SimulationResult analyzeRisk(double meanWidth, double p90Width, int maxIterations) {
+        RiskAnalyzer analyzer = new RiskAnalyzer();
+        return analyzer.simulateToPrecision(risks, meanWidth, p90Width, maxIterations);
+    }
 }
@@ -0,0 +1,531 @@
+package net.mooctest;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+public final class ProjectJournal implements Closeable {
+    public static final long DEFAULT_CHECKPOINT_INTERVAL = 1_000_000L;
+
+    private static final int SNAPSHOT_MAGIC = 0x504A5333;
+    private static final byte TASK = 1;
+    private static final byte DEPENDENCY = 2;
+    private static final byte STATUS = 3;
+    private static final byte ITEM = 4;
+    private static final byte RISK = 5;
+    private static final byte RESERVE = 6;
+    private static final byte BUDGET = 7;
+    private static final byte NAME = 8;
+    private static final byte TASK_FIELDS = 9;
+
+    private final Path dir;
+    private final Project project;
+    private long generation;
+    private FileOutputStream file;
+    private DataOutputStream out;
+    private long records;
+    private long checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+
+    private ProjectJournal(Path dir, Project project, long generation) {
+        this.dir = dir;
+        this.project = project;
+        this.generation = generation;
+    }
+
+    public static ProjectJournal create(Path dir, Project project) {
+        if (dir == null || project == null) throw new DomainException("journal arguments null");
+        try {
+            Files.createDirectories(dir);
+            if (latestGeneration(dir) > 0) throw new DomainException("journal already exists");
+            ProjectJournal j = new ProjectJournal(dir, project, 1);
+            writeSnapshot(snapshotFile(dir, 1), project);
+            j.openJournal();
+            syncDirectory(dir);
+            project.attachJournal(j);
+            return j;
+        } catch (IOException e) {
+            throw new DomainException("journal create failed", e);
+        }
+    }
+
+    public static ProjectJournal open(Path dir) {
+        if (dir == null) throw new DomainException("journal dir null");
+        try {
+            long gen = latestGeneration(dir);
+            if (gen == 0) throw new DomainException("no snapshot found");
+            Project project = readSnapshot(snapshotFile(dir, gen));
+            ProjectJournal j = new ProjectJournal(dir, project, gen);
+            j.replay();
+            j.openJournal();
+            project.attachJournal(j);
+            return j;
+        } catch (IOException e) {
+            throw new DomainException("journal open failed", e);
+        }
+    }
+
+    public Project getProject() { return project; }
+    public long getGeneration() { return generation; }
+    public long getRecordCount() { return records; }
+
+    public void setCheckpointInterval(long records) {
+        this.checkpointInterval = records <= 0 ? Long.MAX_VALUE : records;
+    }
+
+    // observers append under the project's write lock, so the stream is only swapped or closed while holding it too
+    public void flush() {
+        project.withWriteLock(() -> {
+            try {
+                out.flush();
+                file.getFD().sync();
+            } catch (IOException e) {
+                throw new DomainException("journal flush failed", e);
+            }
+        });
+    }
+
+    public void checkpoint() {
+        project.withWriteLock(this::rotate);
+    }
+
+    private void rotate() {
+        try {
+            out.flush();
+            file.getFD().sync();
+            long next = generation + 1;
+            writeSnapshot(snapshotFile(dir, next), project);
+            out.close();
+            long old = generation;
+            generation = next;
+            openJournal();
+            // the new snapshot and journal must be durable names before the old generation goes
+            syncDirectory(dir);
+            Files.deleteIfExists(journalFile(dir, old));
+            Files.deleteIfExists(snapshotFile(dir, old));
+        } catch (IOException e) {
+            throw new DomainException("journal checkpoint failed", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        project.withWriteLock(() -> {
+            project.attachJournal(null);
+            try {
+                out.close();
+            } catch (IOException e) {
+                throw new DomainException("journal close failed", e);
+            }
+        });
+    }
+
+    void taskAdded(Task t) {
+        try {
+            out.writeByte(TASK);
+            writeTask(out, t);
+            Task[] deps = t.dependencyArray();
+            out.writeInt(deps.length);
+            for (Task d : deps) out.writeLong(d.getId());
+            // edges from tasks already in the project whose prerequisite joins only now
+            List<Task> dependents = new ArrayList<>();
+            for (Task d : t.dependentSet()) if (project.getTask(d.getId()) == d) dependents.add(d);
+            out.writeInt(dependents.size());
+            for (Task d : dependents) out.writeLong(d.getId());
+        } catch (IOException e) {
+            throw new DomainException("journal write failed", e);
+        }
+        recorded();
+    }
+
+    void dependencyAdded(Task t, Task dep) {
+        try {
+            out.writeByte(DEPENDENCY);
+            out.writeLong(t.getId());
+            out.writeLong(dep.getId());
+        } catch (IOException e) {
+            throw new DomainException("journal write failed", e);
+        }
+        recorded();
+    }
+
+    void taskChanged(Task t) {
+        try {
+            out.writeByte(TASK_FIELDS);
+            out.writeLong(t.getId());
+            writeString(out, t.getName());
+            out.writeInt(t.getDuration());
+            out.writeByte(t.getPriority().ordinal());
+            writeSkills(out, t);
+        } catch (IOException e) {
+            throw new DomainException("journal write failed", e);
+        }
+        recorded();
+    }
+
+    void statusChanged(Task t, Task.Status to) {
+        try {
+            out.writeByte(STATUS);
+            out.writeLong(t.getId());
+            out.writeByte(to.ordinal());
+        } catch (IOException e) {
+            throw new DomainException("journal write failed", e);
+        }
+        recorded();
+    }
+
+    void itemAdded(Budget.Item item) {
+        try {
+            out.writeByte(ITEM);
+            writeItem(out, item);
+        } catch (IOException e) {
+            throw new DomainException("journal write failed", e);
+        }
+        recorded();
+    }
+
+    void reserveRatioChanged(double ratio) {
+        try {
+            out.writeByte(RESERVE);
+            out.writeDouble(ratio);
+        } catch (IOException e) {
+            throw new DomainException("journal write failed", e);
+        }
+        recorded();
+    }
+
+    void budgetReplaced(Budget b) {
+        try {
+            out.writeByte(BUDGET);
+            out.writeDouble(b.reserveRatio());
+            List<Budget.Item> items = b.getItems();
+            out.writeInt(items.size());
+            for (Budget.Item item : items) writeItem(out, item);
+        } catch (IOException e) {
+            throw new DomainException("journal write failed", e);
+        }
+        recorded();
+    }
+
+    void riskAdded(Risk r) {
+        try {
+            out.writeByte(RISK);
+            writeRisk(out, r);
+        } catch (IOException e) {
+            throw new DomainException("journal write failed", e);
+        }
+        recorded();
+    }
+
+    void renamed(String name) {
+        try {
+            out.writeByte(NAME);
+            writeString(out, name);
+        } catch (IOException e) {
+            throw new DomainException("journal write failed", e);
+        }
+        recorded();
+    }
+
+    private void recorded() {
+        if (++records >= checkpointInterval) {
+            rotate();
+            records = 0;
+        }
+    }
+
+    private void openJournal() throws IOException {
+        file = new FileOutputStream(journalFile(dir, generation).toFile(), true);
+        out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16));
+    }
+
+    private void replay() throws IOException {
+        Path path = journalFile(dir, generation);
+        if (!Files.exists(path)) return;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE) throw new DomainException("journal too large");
+            MappedByteBuffer in = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int good = 0;
+            try {
+                while (in.hasRemaining()) {
+                    if (!apply(in)) break;
+                    good = in.position();
+                    records++;
+                }
+            } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                // torn tail record from an interrupted write
+            }
+            if (good < size) ch.truncate(good);
+        }
+    }
+
+    private boolean apply(ByteBuffer in) {
+        byte type = in.get();
+        switch (type) {
+            case TASK: {
+                Task t = readTask(in);
+                long[] deps = readIds(in);
+                long[] dependents = readIds(in);
+                project.addTask(t);
+                for (long id : deps) {
+                    Task d = project.getTask(id);
+                    if (d != null) t.addDependency(d);
+                }
+                for (long id : dependents) {
+                    Task d = project.getTask(id);
+                    if (d != null) d.addDependency(t);
+                }
+                return true;
+            }
+            case TASK_FIELDS: {
+                Task t = project.getTask(in.getLong());
+                String name = readString(in);
+                int duration = in.getInt();
+                Task.Priority priority = Task.Priority.values()[in.get()];
+                Map<String, Integer> skills = readSkills(in);
+                if (t != null) {
+                    t.setName(name);
+                    t.setDuration(duration);
+                    t.setPriority(priority);
+                    for (Map.Entry<String, Integer> e : skills.entrySet()) t.requireSkill(e.getKey(), e.getValue());
+                }
+                return true;
+            }
+            case DEPENDENCY: {
+                Task t = project.getTask(in.getLong());
+                Task d = project.getTask(in.getLong());
+                if (t != null && d != null) t.addDependency(d);
+                return true;
+            }
+            case STATUS: {
+                Task t = project.getTask(in.getLong());
+                Task.Status s = Task.Status.values()[in.get()];
+                if (t != null) t.restoreStatus(s);
+                return true;
+            }
+            case ITEM:
+                project.getBudget().add(readItem(in));
+                return true;
+            case RESERVE:
+                project.getBudget().setReserveRatio(in.getDouble());
+                return true;
+            case BUDGET: {
+                Budget b = new Budget();
+                b.setReserveRatio(in.getDouble());
+                int n = in.getInt();
+                for (int k = 0; k < n; k++) b.add(readItem(in));
+                project.setBudget(b);
+                return true;
+            }
+            case RISK:
+                project.addRisk(readRisk(in));
+                return true;
+            case NAME:
+                project.setName(readString(in));
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static void writeSnapshot(Path target, Project project) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        List<Task> tasks = new ArrayList<>(project.getTasks());
+        OnlineTopologicalOrder.sortByRank(tasks);
+        Map<Task, Integer> index = new IdentityHashMap<>(tasks.size() * 2);
+        for (Task t : tasks) index.put(t, index.size());
+        try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(project.getId());
+            writeString(out, project.getName());
+            out.writeInt(tasks.size());
+            for (Task t : tasks) writeTask(out, t);
+            Task[][] deps = new Task[tasks.size()][];
+            int edges = 0;
+            for (Task t : tasks) {
+                deps[index.get(t)] = t.dependencyArray();
+                for (Task d : deps[index.get(t)]) if (index.containsKey(d)) edges++;
+            }
+            out.writeInt(edges);
+            for (Task t : tasks) {
+                for (Task d : deps[index.get(t)]) {
+                    Integer k = index.get(d);
+                    if (k == null) continue;
+                    out.writeInt(index.get(t));
+                    out.writeInt(k);
+                }
+            }
+            Budget b = project.getBudget();
+            out.writeDouble(b.reserveRatio());
+            List<Budget.Item> items = b.getItems();
+            out.writeInt(items.size());
+            for (Budget.Item item : items) writeItem(out, item);
+            List<Risk> risks = project.getRisks();
+            out.writeInt(risks.size());
+            for (Risk r : risks) writeRisk(out, r);
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(target.getParent());
+    }
+
+    private static void syncDirectory(Path dir) throws IOException {
+        FileChannel ch;
+        try {
+            ch = FileChannel.open(dir, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return; // directories cannot be opened for sync on every platform
+        }
+        try {
+            ch.force(true);
+        } finally {
+            ch.close();
+        }
+    }
+
+    private static Project readSnapshot(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) throw new DomainException("snapshot too large");
+            MappedByteBuffer in = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            try {
+                if (in.getInt() != SNAPSHOT_MAGIC) throw new DomainException("snapshot corrupt");
+                Project project = new Project(in.getLong(), readString(in));
+                Task[] tasks = new Task[in.getInt()];
+                for (int k = 0; k < tasks.length; k++) {
+                    tasks[k] = readTask(in);
+                    project.addTask(tasks[k]);
+                }
+                int edges = in.getInt();
+                for (int e = 0; e < edges; e++) {
+                    Task t = tasks[in.getInt()];
+                    t.addDependency(tasks[in.getInt()]);
+                }
+                Budget b = project.getBudget();
+                b.setReserveRatio(in.getDouble());
+                int items = in.getInt();
+                for (int k = 0; k < items; k++) b.add(readItem(in));
+                int risks = in.getInt();
+                for (int k = 0; k < risks; k++) project.addRisk(readRisk(in));
+                return project;
+            } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                throw new DomainException("snapshot corrupt", e);
+            }
+        }
+    }
+
+    private static void writeTask(DataOutputStream out, Task t) throws IOException {
+        out.writeLong(t.getId());
+        writeString(out, t.getName());
+        out.writeInt(t.getDuration());
+        out.writeByte(t.getPriority().ordinal());
+        out.writeByte(t.getStatus().ordinal());
+        writeSkills(out, t);
+    }
+
+    private static void writeSkills(DataOutputStream out, Task t) throws IOException {
+        Map<String, Integer> skills = t.getRequiredSkills();
+        out.writeInt(skills.size());
+        for (Map.Entry<String, Integer> e : skills.entrySet()) {
+            writeString(out, e.getKey());
+            out.writeByte(e.getValue());
+        }
+    }
+
+    private static Map<String, Integer> readSkills(ByteBuffer in) {
+        int n = in.getInt();
+        if (n < 0 || n > in.remaining()) throw new BufferUnderflowException();
+        Map<String, Integer> skills = new LinkedHashMap<>();
+        for (int k = 0; k < n; k++) {
+            String skill = readString(in);
+            skills.put(skill, (int)in.get());
+        }
+        return skills;
+    }
+
+    private static long[] readIds(ByteBuffer in) {
+        int n = in.getInt();
+        if (n < 0 || n > in.remaining() / 8) throw new BufferUnderflowException();
+        long[] ids = new long[n];
+        for (int k = 0; k < n; k++) ids[k] = in.getLong();
+        return ids;
+    }
+
+    private static Task readTask(ByteBuffer in) {
+        long id = in.getLong();
+        String name = readString(in);
+        int duration = in.getInt();
+        Task t = new Task(id, name, duration, Task.Priority.values()[in.get()]);
+        t.restoreStatus(Task.Status.values()[in.get()]);
+        for (Map.Entry<String, Integer> e : readSkills(in).entrySet()) t.requireSkill(e.getKey(), e.getValue());
+        return t;
+    }
+
+    private static void writeItem(DataOutputStream out, Budget.Item item) throws IOException {
+        writeString(out, item.getName());
+        out.writeDouble(item.getCost());
+        out.writeDouble(item.getValue());
+        writeString(out, item.getCategory());
+        out.writeDouble(item.getHours());
+    }
+
+    private static Budget.Item readItem(ByteBuffer in) {
+        String name = readString(in);
+        double cost = in.getDouble();
+        double value = in.getDouble();
+        String category = readString(in);
+        return new Budget.Item(name, cost, value, category, in.getDouble());
+    }
+
+    private static void writeRisk(DataOutputStream out, Risk r) throws IOException {
+        writeString(out, r.getName());
+        writeString(out, r.getCategory());
+        out.writeDouble(r.getProbability());
+        out.writeDouble(r.getImpact());
+    }
+
+    private static Risk readRisk(ByteBuffer in) {
+        String name = readString(in);
+        String category = readString(in);
+        double p = in.getDouble();
+        return new Risk(name, category, p, in.getDouble());
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int n = in.getInt();
+        if (n < 0 || n > in.remaining()) throw new BufferUnderflowException();
+        byte[] b = new byte[n];
+        in.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static Path snapshotFile(Path dir, long gen) { return dir.resolve(String.format("snapshot-%08d.bin", gen)); }
+    private static Path journalFile(Path dir, long gen) { return dir.resolve(String.format("journal-%08d.bin", gen)); }
+
+    private static long latestGeneration(Path dir) throws IOException {
+        long gen = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "snapshot-*.bin")) {
+            for (Path p : files) {
+                String n = p.getFileName().toString();
+                try {
+                    gen = Math.max(gen, Long.parseLong(n.substring(9, n.length() - 4)));
+                } catch (NumberFormatException e) {
+                    // not a generation file
+                }
+            }
+        }
+        return gen;
+    }
+}
@@ -0,0 +1,125 @@
+package net.mooctest;
+
+import java.util.*;
+
+public final class ProjectSnapshot {
+    private final long projectId;
+    private final String name;
+    private final long version;
+    private final long scheduleVersion;
+    private final long riskVersion;
+    private final int size;
+    private final Task[] tasks;
+    private final Map<Task, Integer> index;
+    private final Task.Status[] status;
+    private final int[] duration;
+    private final int[] predOffsets;
+    private final int[] preds;
+    private final List<Researcher> researchers;
+    private final List<Risk> risks;
+    private final double budgetCost;
+    private final double budgetValue;
+    private final long[] statusCount = new long[Task.Status.values().length];
+    private volatile TaskGraph graph;
+
+    ProjectSnapshot(Project project, long version) {
+        this.projectId = project.getId();
+        this.name = project.getName();
+        this.version = version;
+        this.scheduleVersion = project.scheduleVersion();
+        this.riskVersion = project.riskVersion();
+        Task[] own = project.getTasks().toArray(new Task[0]);
+        this.size = own.length;
+        // prerequisites outside the project follow the project tasks, as in TaskGraph.of, so the graph sees every dependency
+        this.index = new IdentityHashMap<>(size * 2);
+        List<Task> all = new ArrayList<>(Arrays.asList(own));
+        for (int i = 0; i < size; i++) index.put(own[i], i);
+        List<Task[]> deps = new ArrayList<>(size);
+        for (int i = 0; i < all.size(); i++) {
+            Task[] ds = all.get(i).dependencyArray();
+            deps.add(ds);
+            for (Task d : ds) {
+                if (!index.containsKey(d)) {
+                    index.put(d, all.size());
+                    all.add(d);
+                }
+            }
+        }
+        this.tasks = all.toArray(new Task[0]);
+        int n = tasks.length;
+        this.status = new Task.Status[n];
+        this.duration = new int[n];
+        for (int i = 0; i < n; i++) {
+            status[i] = tasks[i].getStatus();
+            duration[i] = tasks[i].getDuration();
+            if (i < size) statusCount[status[i].ordinal()]++;
+        }
+        this.predOffsets = new int[n + 1];
+        int e = 0;
+        for (int i = 0; i < n; i++) {
+            e += deps.get(i).length;
+            predOffsets[i + 1] = e;
+        }
+        this.preds = new int[e];
+        e = 0;
+        for (int i = 0; i < n; i++) {
+            for (Task d : deps.get(i)) preds[e++] = index.get(d);
+        }
+        this.researchers = Collections.unmodifiableList(new ArrayList<>(project.getResearchers()));
+        this.risks = Collections.unmodifiableList(project.getRisks());
+        Budget b = project.getBudget();
+        synchronized (b) {
+            this.budgetCost = b.totalCost();
+            this.budgetValue = b.totalValue();
+        }
+    }
+
+    public long getProjectId() { return projectId; }
+    public String getName() { return name; }
+    public long getVersion() { return version; }
+    long scheduleVersion() { return scheduleVersion; }
+    long riskVersion() { return riskVersion; }
+    public int size() { return size; }
+    public List<Task> getTasks() { return Collections.unmodifiableList(Arrays.asList(tasks).subList(0, size)); }
+    public List<Researcher> getResearchers() { return researchers; }
+    public List<Risk> getRisks() { return risks; }
+    public double getBudgetCost() { return budgetCost; }
+    public double getBudgetValue() { return budgetValue; }
+
+    public Task.Status getStatus(Task t) { return status[indexOf(t)]; }
+    public int getDuration(Task t) { return duration[indexOf(t)]; }
+
+    public long statusCount(Task.Status s) {
+        return s == null ? 0 : statusCount[s.ordinal()];
+    }
+
+    public List<Task> getDependencies(Task t) {
+        int i = indexOf(t);
+        List<Task> res = new ArrayList<>(predOffsets[i + 1] - predOffsets[i]);
+        for (int e = predOffsets[i]; e < predOffsets[i + 1]; e++) res.add(tasks[preds[e]]);
+        return res;
+    }
+
+    /**
+     * Dependency graph over this snapshot's durations. Indices below {@link #size()} are the project's tasks;
+     * prerequisites outside the project are appended after them, as {@link TaskGraph#of} does.
+     */
+    public TaskGraph graph() {
+        TaskGraph g = graph;
+        if (g == null) {
+            g = TaskGraph.of(tasks, size, index, duration, predOffsets, preds);
+            graph = g;
+        }
+        return g;
+    }
+
+    public int criticalPathDuration() {
+        return graph().longestPathDuration();
+    }
+
+    private int indexOf(Task t) {
+        Integer i = index.get(t);
+        if (i == null) throw new DomainException("task not in snapshot");
+        return i;
+    }
+}
@@ -0,0 +1,387 @@
+package net.mooctest;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public final class ProjectTransfer {
+    public static final int BLOCK = 4096;
+
+    private static final int MAGIC = 0x50584334;
+
+    private ProjectTransfer() {}
+
+    public static void exportTo(Project project, OutputStream os) {
+        if (project == null || os == null) throw new DomainException("export arguments null");
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os, 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeLong(project.getId());
+            writeString(out, project.getName());
+            Map<Task, Integer> index = writeTasks(out, project.getTasks());
+            writeEdges(out, index);
+            writeResearchers(out, project.getResearchers());
+            writeRisks(out, project.getRisks());
+            writeBudget(out, project.getBudget());
+            out.flush();
+        } catch (IOException e) {
+            throw new DomainException("export failed", e);
+        }
+    }
+
+    public static Project importFrom(InputStream is) {
+        if (is == null) throw new DomainException("import stream null");
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(is, 1 << 16));
+            if (in.readInt() != MAGIC) throw new DomainException("not a project export");
+            Project project = new Project(in.readLong(), readString(in));
+            Task[] tasks = readTasks(in, project);
+            readEdges(in, tasks);
+            readResearchers(in, project);
+            readRisks(in, project);
+            readBudget(in, project);
+            return project;
+        } catch (EOFException e) {
+            throw new DomainException("export truncated", e);
+        } catch (IOException e) {
+            throw new DomainException("import failed", e);
+        }
+    }
+
+    private static Map<Task, Integer> writeTasks(DataOutputStream out, Collection<Task> all) throws IOException {
+        Task[] tasks = all.toArray(new Task[0]);
+        OnlineTopologicalOrder.sortByRank(tasks);
+        Map<Task, Integer> index = new IdentityHashMap<>(tasks.length * 2);
+        out.writeInt(tasks.length);
+        String[] names = new String[BLOCK];
+        for (int from = 0; from < tasks.length; from += BLOCK) {
+            int n = Math.min(BLOCK, tasks.length - from);
+            out.writeInt(n);
+            for (int k = 0; k < n; k++) {
+                index.put(tasks[from + k], from + k);
+                out.writeLong(tasks[from + k].getId());
+            }
+            for (int k = 0; k < n; k++) out.writeInt(tasks[from + k].getDuration());
+            for (int k = 0; k < n; k++) out.writeByte(tasks[from + k].getPriority().ordinal());
+            for (int k = 0; k < n; k++) out.writeByte(tasks[from + k].getStatus().ordinal());
+            for (int k = 0; k < n; k++) out.writeDouble(tasks[from + k].getProgress());
+            for (int k = 0; k < n; k++) {
+                Long r = tasks[from + k].getAssignedResearcherId();
+                out.writeLong(r == null ? 0 : r);
+            }
+            for (int k = 0; k < n; k++) names[k] = tasks[from + k].getName();
+            writeStrings(out, names, n);
+            List<Map<String, Integer>> skills = new ArrayList<>(n);
+            for (int k = 0; k < n; k++) skills.add(tasks[from + k].getRequiredSkills());
+            writeSkills(out, skills);
+        }
+        return index;
+    }
+
+    private static Task[] readTasks(DataInputStream in, Project project) throws IOException {
+        Task.Priority[] priorities = Task.Priority.values();
+        Task.Status[] statuses = Task.Status.values();
+        int total = readCount(in);
+        Task[] tasks = new Task[Math.min(total, BLOCK)];
+        long[] ids = new long[BLOCK];
+        int[] durations = new int[BLOCK];
+        byte[] priority = new byte[BLOCK];
+        byte[] status = new byte[BLOCK];
+        double[] progress = new double[BLOCK];
+        long[] assigned = new long[BLOCK];
+        String[] names = new String[BLOCK];
+        for (int from = 0; from < total; ) {
+            int n = readBlock(in, total - from);
+            if (from + n > tasks.length) tasks = Arrays.copyOf(tasks, Math.min(total, tasks.length * 2));
+            for (int k = 0; k < n; k++) ids[k] = in.readLong();
+            for (int k = 0; k < n; k++) durations[k] = in.readInt();
+            in.readFully(priority, 0, n);
+            in.readFully(status, 0, n);
+            for (int k = 0; k < n; k++) progress[k] = in.readDouble();
+            for (int k = 0; k < n; k++) assigned[k] = in.readLong();
+            readStrings(in, names, n);
+            for (int k = 0; k < n; k++) {
+                Task t = new Task(ids[k], names[k], durations[k], priorities[ordinal(priority[k], priorities.length)]);
+                t.restoreStatus(statuses[ordinal(status[k], statuses.length)]);
+                t.updateProgress(progress[k]);
+                if (assigned[k] != 0) t.assignTo(assigned[k]);
+                tasks[from + k] = t;
+            }
+            Task[] block = tasks;
+            int base = from;
+            readSkills(in, n, (k, skill, level) -> block[base + k].requireSkill(skill, level));
+            for (int k = 0; k < n; k++) project.addTask(tasks[from + k]);
+            from += n;
+        }
+        return tasks;
+    }
+
+    private static void writeEdges(DataOutputStream out, Map<Task, Integer> index) throws IOException {
+        Task[] tasks = new Task[index.size()];
+        for (Map.Entry<Task, Integer> e : index.entrySet()) tasks[e.getValue()] = e.getKey();
+        Task[][] deps = new Task[tasks.length][];
+        int total = 0;
+        for (int i = 0; i < tasks.length; i++) {
+            deps[i] = tasks[i].dependencyArray();
+            for (Task d : deps[i]) if (index.containsKey(d)) total++;
+        }
+        out.writeInt(total);
+        int[] to = new int[BLOCK];
+        int[] from = new int[BLOCK];
+        int n = 0;
+        for (int i = 0; i < tasks.length; i++) {
+            for (Task d : deps[i]) {
+                Integer j = index.get(d);
+                if (j == null) continue;
+                to[n] = i;
+                from[n++] = j;
+                if (n == BLOCK) {
+                    writeEdgeBlock(out, to, from, n);
+                    n = 0;
+                }
+            }
+        }
+        if (n > 0) writeEdgeBlock(out, to, from, n);
+    }
+
+    private static void writeEdgeBlock(DataOutputStream out, int[] to, int[] from, int n) throws IOException {
+        out.writeInt(n);
+        for (int k = 0; k < n; k++) out.writeInt(to[k]);
+        for (int k = 0; k < n; k++) out.writeInt(from[k]);
+    }
+
+    private static void readEdges(DataInputStream in, Task[] tasks) throws IOException {
+        int total = readCount(in);
+        int[] to = new int[BLOCK];
+        for (int done = 0; done < total; ) {
+            int n = readBlock(in, total - done);
+            for (int k = 0; k < n; k++) to[k] = readIndex(in, tasks.length);
+            for (int k = 0; k < n; k++) {
+                int from = readIndex(in, tasks.length);
+                if (!tasks[to[k]].addDependency(tasks[from])) throw new DomainException("export has a dependency cycle");
+            }
+            done += n;
+        }
+    }
+
+    private static void writeResearchers(DataOutputStream out, Collection<Researcher> all) throws IOException {
+        Researcher[] rs = all.toArray(new Researcher[0]);
+        out.writeInt(rs.length);
+        String[] names = new String[BLOCK];
+        for (int from = 0; from < rs.length; from += BLOCK) {
+            int n = Math.min(BLOCK, rs.length - from);
+            out.writeInt(n);
+            for (int k = 0; k < n; k++) out.writeLong(rs[from + k].getId());
+            for (int k = 0; k < n; k++) out.writeInt(rs[from + k].getWeeklyCapacity());
+            for (int k = 0; k < n; k++) out.writeInt(rs[from + k].getCapacity());
+            for (int k = 0; k < n; k++) out.writeDouble(rs[from + k].getRating());
+            for (int k = 0; k < n; k++) out.writeInt(rs[from + k].assignedCount());
+            for (int k = 0; k < n; k++) names[k] = rs[from + k].getName();
+            writeStrings(out, names, n);
+            List<Map<String, Integer>> skills = new ArrayList<>(n);
+            for (int k = 0; k < n; k++) {
+                Map<String, Integer> m = new LinkedHashMap<>();
+                for (String s : rs[from + k].getSkills()) m.put(s, rs[from + k].getSkillLevel(s));
+                skills.add(m);
+            }
+            writeSkills(out, skills);
+        }
+    }
+
+    private static void readResearchers(DataInputStream in, Project project) throws IOException {
+        int total = readCount(in);
+        long[] ids = new long[BLOCK];
+        int[] weekly = new int[BLOCK];
+        int[] capacity = new int[BLOCK];
+        double[] rating = new double[BLOCK];
+        int[] assigned = new int[BLOCK];
+        String[] names = new String[BLOCK];
+        Researcher[] block = new Researcher[BLOCK];
+        for (int done = 0; done < total; ) {
+            int n = readBlock(in, total - done);
+            for (int k = 0; k < n; k++) ids[k] = in.readLong();
+            for (int k = 0; k < n; k++) weekly[k] = in.readInt();
+            for (int k = 0; k < n; k++) capacity[k] = in.readInt();
+            for (int k = 0; k < n; k++) rating[k] = in.readDouble();
+            for (int k = 0; k < n; k++) assigned[k] = in.readInt();
+            readStrings(in, names, n);
+            for (int k = 0; k < n; k++) {
+                block[k] = new Researcher(ids[k], names[k], weekly[k]);
+                block[k].restoreCapacity(capacity[k]);
+                block[k].restoreRating(rating[k]);
+                block[k].restoreAssignedCount(assigned[k]);
+            }
+            readSkills(in, n, (k, skill, level) -> block[k].addSkill(skill, level));
+            for (int k = 0; k < n; k++) project.addResearcher(block[k]);
+            done += n;
+        }
+    }
+
+    private static void writeRisks(DataOutputStream out, List<Risk> risks) throws IOException {
+        out.writeInt(risks.size());
+        String[] names = new String[BLOCK];
+        String[] categories = new String[BLOCK];
+        for (int from = 0; from < risks.size(); from += BLOCK) {
+            int n = Math.min(BLOCK, risks.size() - from);
+            out.writeInt(n);
+            for (int k = 0; k < n; k++) {
+                names[k] = risks.get(from + k).getName();
+                categories[k] = risks.get(from + k).getCategory();
+            }
+            writeStrings(out, names, n);
+            writeStrings(out, categories, n);
+            for (int k = 0; k < n; k++) out.writeDouble(risks.get(from + k).getProbability());
+            for (int k = 0; k < n; k++) out.writeDouble(risks.get(from + k).getImpact());
+        }
+    }
+
+    private static void readRisks(DataInputStream in, Project project) throws IOException {
+        int total = readCount(in);
+        String[] names = new String[BLOCK];
+        String[] categories = new String[BLOCK];
+        double[] probability = new double[BLOCK];
+        for (int done = 0; done < total; ) {
+            int n = readBlock(in, total - done);
+            readStrings(in, names, n);
+            readStrings(in, categories, n);
+            for (int k = 0; k < n; k++) probability[k] = in.readDouble();
+            for (int k = 0; k < n; k++) project.addRisk(new Risk(names[k], categories[k], probability[k], in.readDouble()));
+            done += n;
+        }
+    }
+
+    private static void writeBudget(DataOutputStream out, Budget budget) throws IOException {
+        List<Budget.Item> items = budget.getItems();
+        out.writeDouble(budget.reserveRatio());
+        out.writeInt(items.size());
+        String[] names = new String[BLOCK];
+        String[] categories = new String[BLOCK];
+        for (int from = 0; from < items.size(); from += BLOCK) {
+            int n = Math.min(BLOCK, items.size() - from);
+            out.writeInt(n);
+            for (int k = 0; k < n; k++) {
+                names[k] = items.get(from + k).getName();
+                categories[k] = items.get(from + k).getCategory();
+            }
+            writeStrings(out, names, n);
+            writeStrings(out, categories, n);
+            for (int k = 0; k < n; k++) out.writeDouble(items.get(from + k).getCost());
+            for (int k = 0; k < n; k++) out.writeDouble(items.get(from + k).getValue());
+            for (int k = 0; k < n; k++) out.writeDouble(items.get(from + k).getHours());
+        }
+    }
+
+    private static void readBudget(DataInputStream in, Project project) throws IOException {
+        Budget budget = project.getBudget();
+        budget.setReserveRatio(in.readDouble());
+        int total = readCount(in);
+        String[] names = new String[BLOCK];
+        String[] categories = new String[BLOCK];
+        double[] cost = new double[BLOCK];
+        double[] value = new double[BLOCK];
+        for (int done = 0; done < total; ) {
+            int n = readBlock(in, total - done);
+            readStrings(in, names, n);
+            readStrings(in, categories, n);
+            for (int k = 0; k < n; k++) cost[k] = in.readDouble();
+            for (int k = 0; k < n; k++) value[k] = in.readDouble();
+            for (int k = 0; k < n; k++) budget.add(new Budget.Item(names[k], cost[k], value[k], categories[k], in.readDouble()));
+            done += n;
+        }
+    }
+
+    private interface SkillSink {
+        void accept(int k, String skill, int level);
+    }
+
+    private static void writeSkills(DataOutputStream out, List<Map<String, Integer>> skills) throws IOException {
+        int total = 0;
+        for (Map<String, Integer> m : skills) {
+            out.writeInt(m.size());
+            total += m.size();
+        }
+        String[] names = new String[total];
+        int k = 0;
+        for (Map<String, Integer> m : skills) for (String s : m.keySet()) names[k++] = s;
+        writeStrings(out, names, total);
+        for (Map<String, Integer> m : skills) for (int level : m.values()) out.writeByte(level);
+    }
+
+    private static void readSkills(DataInputStream in, int n, SkillSink sink) throws IOException {
+        int[] counts = new int[n];
+        long total = 0;
+        for (int k = 0; k < n; k++) {
+            counts[k] = readCount(in);
+            total += counts[k];
+        }
+        if (total > Integer.MAX_VALUE) throw new DomainException("export corrupt");
+        String[] names = new String[(int) total];
+        readStrings(in, names, names.length);
+        int s = 0;
+        for (int k = 0; k < n; k++) {
+            for (int c = 0; c < counts[k]; c++, s++) sink.accept(k, names[s], in.readByte());
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] s, int n) throws IOException {
+        byte[][] bytes = new byte[n][];
+        for (int k = 0; k < n; k++) {
+            bytes[k] = s[k].getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes[k].length);
+        }
+        for (int k = 0; k < n; k++) out.write(bytes[k]);
+    }
+
+    private static void readStrings(DataInputStream in, String[] dst, int n) throws IOException {
+        int[] lengths = new int[n];
+        long total = 0;
+        for (int k = 0; k < n; k++) {
+            lengths[k] = readCount(in);
+            total += lengths[k];
+        }
+        if (total > Integer.MAX_VALUE) throw new DomainException("export corrupt");
+        byte[] buf = new byte[(int) total];
+        in.readFully(buf);
+        int off = 0;
+        for (int k = 0; k < n; k++) {
+            dst[k] = new String(buf, off, lengths[k], StandardCharsets.UTF_8);
+            off += lengths[k];
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] b = new byte[readCount(in)];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /** Reads the length of the next block, which must be non-empty while entries remain and never exceed BLOCK. */
+    private static int readBlock(DataInputStream in, int remaining) throws IOException {
+        int n = in.readInt();
+        if (n <= 0 || n > BLOCK || n > remaining) throw new DomainException("corrupt block");
+        return n;
+    }
+
+    private static int readCount(DataInputStream in) throws IOException {
+        int n = in.readInt();
+        if (n < 0) throw new DomainException("export corrupt");
+        return n;
+    }
+
+    private static int readIndex(DataInputStream in, int size) throws IOException {
+        int i = in.readInt();
+        if (i < 0 || i >= size) throw new DomainException("export corrupt");
+        return i;
+    }
+
+    private static int ordinal(byte b, int size) {
+        if (b < 0 || b >= size) throw new DomainException("export corrupt");
+        return b;
+    }
+}
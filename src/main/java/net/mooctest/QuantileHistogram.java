@@ -0,0 +1,152 @@
+package net.mooctest;
+
+import java.util.Arrays;
+
+public final class QuantileHistogram {
+    public static final int DEFAULT_BINS = 2048;
+    public static final double DEFAULT_RELATIVE_ERROR = 0.0005;
+    public static final double MIN_INDEXED_VALUE = 1e-9;
+
+    private final double upper;
+    private final double width;
+    private final double relativeError;
+    private final double gamma;
+    private final double logGamma;
+    private long[] counts;
+    private int offset;
+    private long zeros;
+    private long total;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public QuantileHistogram(double upper, int bins) {
+        if (bins <= 0) throw new DomainException("bins must be positive");
+        if (!(upper >= 0) || Double.isInfinite(upper)) throw new DomainException("upper bound invalid");
+        this.upper = upper;
+        this.counts = new long[bins];
+        this.width = upper / bins;
+        this.relativeError = 0;
+        this.gamma = 0;
+        this.logGamma = 0;
+    }
+
+    private QuantileHistogram(double relativeError) {
+        this.upper = Double.POSITIVE_INFINITY;
+        this.width = Double.NaN;
+        this.relativeError = relativeError;
+        this.gamma = (1 + relativeError) / (1 - relativeError);
+        this.logGamma = Math.log(gamma);
+        this.counts = new long[0];
+    }
+
+    /**
+     * Log-spaced bins: every quantile is reported within {@code relativeError} of a value actually
+     * recorded, whatever the range of the data. Bins are allocated as values arrive.
+     */
+    public static QuantileHistogram withRelativeError(double relativeError) {
+        if (!(relativeError > 0 && relativeError < 1)) throw new DomainException("relative error must be in (0,1)");
+        return new QuantileHistogram(relativeError);
+    }
+
+    public boolean isRelative() { return relativeError > 0; }
+    public double getRelativeError() { return relativeError; }
+
+    public void add(double v) {
+        if (relativeError > 0) {
+            if (v <= MIN_INDEXED_VALUE) {
+                zeros++;
+            } else {
+                int key = key(v);
+                ensure(key, key);
+                counts[key - offset]++;
+            }
+        } else {
+            int b = width == 0 ? 0 : (int)(v / width);
+            if (b < 0) b = 0;
+            if (b >= counts.length) b = counts.length - 1;
+            counts[b]++;
+        }
+        total++;
+        if (v < min) min = v;
+        if (v > max) max = v;
+    }
+
+    public void merge(QuantileHistogram o) {
+        if (o == null) return;
+        if (o.relativeError != relativeError) throw new DomainException("histogram layout mismatch");
+        if (relativeError > 0) {
+            if (o.counts.length > 0) {
+                ensure(o.offset, o.offset + o.counts.length - 1);
+                for (int i = 0; i < o.counts.length; i++) counts[o.offset + i - offset] += o.counts[i];
+            }
+            zeros += o.zeros;
+        } else {
+            if (o.counts.length != counts.length || o.upper != upper) throw new DomainException("histogram layout mismatch");
+            for (int i = 0; i < counts.length; i++) counts[i] += o.counts[i];
+        }
+        total += o.total;
+        if (o.min < min) min = o.min;
+        if (o.max > max) max = o.max;
+    }
+
+    public long getCount() { return total; }
+    public double getMin() { return total == 0 ? 0 : min; }
+    public double getMax() { return total == 0 ? 0 : max; }
+    public int getBins() { return counts.length; }
+    public double getBinWidth() { return width; }
+    public long[] getCounts() { return Arrays.copyOf(counts, counts.length); }
+
+    public double lowerBound(int bin) {
+        return relativeError > 0 ? Math.pow(gamma, offset + bin - 1) : bin * width;
+    }
+
+    public double quantile(double q) {
+        if (total == 0) return 0;
+        if (q < 0) q = 0;
+        if (q > 1) q = 1;
+        long rank = Math.min(total - 1, (long)Math.floor(total * q));
+        if (relativeError > 0) {
+            if (rank < zeros) return Math.max(getMin(), Math.min(getMax(), 0));
+            long seen = zeros;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen > rank) {
+                    double v = 2 * Math.pow(gamma, offset + i) / (gamma + 1);
+                    return Math.max(getMin(), Math.min(getMax(), v));
+                }
+            }
+            return getMax();
+        }
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            long c = counts[i];
+            if (c == 0) continue;
+            if (seen + c > rank) {
+                double v = lowerBound(i) + width * (rank - seen + 0.5) / c;
+                return Math.max(getMin(), Math.min(getMax(), v));
+            }
+            seen += c;
+        }
+        return getMax();
+    }
+
+    private int key(double v) {
+        return (int)Math.ceil(Math.log(v) / logGamma);
+    }
+
+    private void ensure(int lo, int hi) {
+        int len = counts.length;
+        if (len > 0 && lo >= offset && hi < offset + len) return;
+        int from = len == 0 ? lo : Math.min(lo, offset);
+        int to = len == 0 ? hi : Math.max(hi, offset + len - 1);
+        int slack = Math.max(16, (to - from + 1) / 2);
+        if (len > 0) {
+            if (from < offset) from -= slack;
+            if (to >= offset + len) to += slack;
+        }
+        long[] grown = new long[to - from + 1];
+        if (len > 0) System.arraycopy(counts, 0, grown, offset - from, len);
+        counts = grown;
+        offset = from;
+    }
+}
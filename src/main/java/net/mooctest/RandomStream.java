@@ -0,0 +1,36 @@
+package net.mooctest;
+
+public final class RandomStream {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    public RandomStream(long seed) {
+        long s = mix64(seed);
+        this.state = s == 0 ? GOLDEN_GAMMA : s;
+    }
+
+    public static RandomStream forChunk(long seed, long chunk) {
+        return new RandomStream(mix64(seed) + chunk * GOLDEN_GAMMA);
+    }
+
+    public static long mix64(long z) {
+        z += GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public long nextLong() {
+        long s = state;
+        s ^= (s << 13);
+        s ^= (s >>> 7);
+        s ^= (s << 17);
+        state = s;
+        return s;
+    }
+
+    public double nextDouble() {
+        return (nextLong() >>> 11) / (double)(1L << 53);
+    }
+}
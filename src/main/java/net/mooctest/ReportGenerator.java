@@ -1,23 +1,117 @@
 package net.mooctest;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 public class ReportGenerator {
+    public static final double DEFAULT_MEAN_WIDTH = 0.01;
+    public static final double DEFAULT_P90_WIDTH = 0.02;
+    // several chunks, so the default widths can stop a run after the first chunk or extend it past that chunk
+    public static final int DEFAULT_MAX_ITERATIONS = 8 * RiskAnalyzer.CHUNK_SIZE;
+
+    private final double meanWidth;
+    private final double p90Width;
+    private final int maxIterations;
+    private final Map<Project, Sections> cache = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public ReportGenerator() {
+        this(DEFAULT_MEAN_WIDTH, DEFAULT_P90_WIDTH, DEFAULT_MAX_ITERATIONS);
+    }
+
+    public ReportGenerator(double meanWidth, double p90Width, int maxIterations) {
+        this.meanWidth = meanWidth;
+        this.p90Width = p90Width;
+        this.maxIterations = maxIterations;
+    }
+
     public String generate(Project project) {
         if (project == null) return "";
         StringBuilder sb = new StringBuilder();
-        sb.append("Project:").append(project.getName()).append("\n");
-        Map<Task.Status, Long> counts = project.statusCounts();
-        for (Task.Status s : Task.Status.values()) {
-            sb.append("Status ").append(s.name()).append(":").append(counts.get(s)).append("\n");
-        }
-        sb.append("CriticalPath:").append(project.criticalPathDuration()).append("\n");
-        sb.append("BudgetCost:").append(project.getBudget().totalCost()).append("\n");
-        sb.append("BudgetValue:").append(project.getBudget().totalValue()).append("\n");
-        RiskAnalyzer.SimulationResult r = project.analyzeRisk(100);
-        sb.append("RiskMean:").append(r.getMeanImpact()).append("\n");
-        sb.append("RiskP90:").append(r.getP90Impact()).append("\n");
-        sb.append("RiskWorst:").append(r.getWorstCaseImpact()).append("\n");
+        generate(project, sb);
         return sb.toString();
     }
+
+    public void generate(Project project, Appendable out) {
+        if (project == null) return;
+        if (out == null) throw new DomainException("output null");
+        Metrics.Timer t = Metrics.start("report.generate");
+        try {
+            // every section reads the same snapshot, so a concurrent write cannot split one report across two states
+            ProjectSnapshot snap = project.snapshot();
+            write(snap, sections(project, snap), out);
+        } finally {
+            t.close();
+        }
+    }
+
+    private void write(ProjectSnapshot snap, Sections s, Appendable out) {
+        try {
+            out.append("Project:").append(snap.getName()).append("\n");
+            for (Task.Status st : Task.Status.values()) {
+                out.append("Status ").append(st.name()).append(":").append(String.valueOf(snap.statusCount(st))).append("\n");
+            }
+            out.append("CriticalPath:").append(String.valueOf(s.criticalPath)).append("\n");
+            out.append("BudgetCost:").append(String.valueOf(snap.getBudgetCost())).append("\n");
+            out.append("BudgetValue:").append(String.valueOf(snap.getBudgetValue())).append("\n");
+            RiskAnalyzer.SimulationResult r = s.risk;
+            out.append("RiskMean:").append(String.valueOf(r.getMeanImpact())).append("\n");
+            out.append("RiskP90:").append(String.valueOf(r.getP90Impact())).append("\n");
+            out.append("RiskWorst:").append(String.valueOf(r.getWorstCaseImpact())).append("\n");
+            out.append("RiskIterations:").append(String.valueOf(r.getIterations())).append("\n");
+        } catch (IOException e) {
+            throw new DomainException("report write failed", e);
+        }
+    }
+
+    public List<String> generateAll(List<Project> projects) {
+        return generateAll(projects, ForkJoinPool.commonPool());
+    }
+
+    public List<String> generateAll(List<Project> projects, ForkJoinPool pool) {
+        if (projects == null) return new ArrayList<>();
+        String[] res = new String[projects.size()];
+        Parallel.forRange(pool, 0, res.length, 1, i -> res[i] = generate(projects.get(i)));
+        return Arrays.asList(res);
+    }
+
+    private Sections sections(Project project, ProjectSnapshot snap) {
+        Sections s = cache.get(project);
+        if (s == null) {
+            s = new Sections();
+            cache.put(project, s);
+        }
+        synchronized (s) {
+            long schedule = snap.scheduleVersion();
+            long risk = snap.riskVersion();
+            boolean stale = s.scheduleVersion != schedule || s.riskVersion != risk || s.risk == null;
+            Metrics.count(stale ? "report.cache.miss" : "report.cache.hit", 1);
+            if (s.scheduleVersion != schedule) {
+                s.criticalPath = snap.criticalPathDuration();
+                s.scheduleVersion = schedule;
+            }
+            if (s.riskVersion != risk || s.risk == null) {
+                s.risk = new RiskAnalyzer().simulateToPrecision(snap.getRisks(), meanWidth, p90Width, maxIterations);
+                s.riskVersion = risk;
+            }
+            // copied under the lock so a report renders the sections of its own snapshot even if another refreshes them
+            return s.copy();
+        }
+    }
+
+    private static final class Sections {
+        long scheduleVersion = -1;
+        int criticalPath;
+        long riskVersion = -1;
+        RiskAnalyzer.SimulationResult risk;
+
+        Sections copy() {
+            Sections c = new Sections();
+            c.scheduleVersion = scheduleVersion;
+            c.criticalPath = criticalPath;
+            c.riskVersion = riskVersion;
+            c.risk = risk;
+            return c;
+        }
+    }
 }
@@ -1,20 +1,27 @@
 package net.mooctest;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Researcher {
     private final long id;
-    private String name;
+    private volatile String name;
     private final Map<String, Integer> skills;
+    private final int weeklyCapacity;
     private int capacity;
     private double rating;
     private int assignedCount;
 
     public Researcher(String name, int capacity) {
-        this.id = IdGenerator.nextId();
+        this(IdGenerator.nextId(), name, capacity);
+    }
+
+    Researcher(long id, String name, int capacity) {
+        this.id = id;
         this.name = name == null ? "" : name;
-        this.capacity = Math.max(0, capacity);
-        this.skills = new HashMap<>();
+        this.weeklyCapacity = Math.max(0, capacity);
+        this.capacity = weeklyCapacity;
+        this.skills = new ConcurrentHashMap<>();
         this.assignedCount = 0;
         this.rating = 0.0;
     }
@@ -22,8 +29,13 @@ public class Researcher {
     public long getId() { return id; }
     public String getName() { return name; }
     public void setName(String n) { this.name = n == null ? "" : n; }
-    public int getCapacity() { return capacity; }
-    public double getRating() { return rating; }
+    public synchronized int getCapacity() { return capacity; }
+    public int getWeeklyCapacity() { return weeklyCapacity; }
+    synchronized void restoreCapacity(int c) { this.capacity = Math.max(0, c); }
+    public synchronized double getRating() { return rating; }
+    synchronized void restoreRating(double r) { this.rating = r; }
+    synchronized int assignedCount() { return assignedCount; }
+    synchronized void restoreAssignedCount(int n) { this.assignedCount = Math.max(0, n); }
 
     public void addSkill(String skill, int level) {
         if (skill == null || skill.isEmpty()) return;
@@ -41,38 +53,38 @@ public class Researcher {
         return getSkillLevel(skill) >= Math.max(0, minLevel);
     }
 
-    public boolean allocateHours(int hours) {
+    public synchronized boolean allocateHours(int hours) {
         if (hours <= 0) return false;
         if (capacity < hours) return false;
         capacity -= hours;
         return true;
     }
 
-    public void releaseHours(int hours) {
+    public synchronized void releaseHours(int hours) {
         if (hours <= 0) return;
         capacity += hours;
         if (capacity > 40) capacity = 40;
     }
 
-    public void updateRating(double outcomeScore) {
+    public synchronized void updateRating(double outcomeScore) {
         if (outcomeScore < 0) outcomeScore = 0;
         if (outcomeScore > 100) outcomeScore = 100;
         double alpha = 0.3;
         rating = rating * (1 - alpha) + outcomeScore * alpha;
     }
 
-    public boolean canAssign(Task task) {
+    public synchronized boolean canAssign(Task task) {
         if (task == null) return false;
         return capacity >= task.getDuration();
     }
 
-    public boolean assignTask(Task task) {
+    public synchronized boolean assignTask(Task task) {
         if (!canAssign(task)) return false;
         assignedCount++;
         return allocateHours(task.getDuration());
     }
 
-    public boolean completeTask(Task task, double quality) {
+    public synchronized boolean completeTask(Task task, double quality) {
         if (task == null) return false;
         releaseHours(task.getDuration());
         updateRating(quality);
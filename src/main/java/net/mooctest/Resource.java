@@ -1,9 +1,26 @@
 package net.mooctest;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 
 public class Resource {
+    public static final class Slot {
+        private final Resource resource;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+
+        public Slot(Resource resource, LocalDateTime start, LocalDateTime end) {
+            this.resource = resource;
+            this.start = start;
+            this.end = end;
+        }
+
+        public Resource getResource() { return resource; }
+        public LocalDateTime getStart() { return start; }
+        public LocalDateTime getEnd() { return end; }
+    }
+
     private final long id;
     private String name;
     private String type;
@@ -25,9 +42,7 @@ public class Resource {
     public boolean isAvailable(LocalDateTime start, LocalDateTime end) {
         if (start == null || end == null) return false;
         if (!end.isAfter(start)) return false;
-        Map.Entry<LocalDateTime, LocalDateTime> floor = bookings.floorEntry(start);
-        if (floor != null && !floor.getValue().isBefore(start)) return false;
-        return true;
+        return !overlaps(start, end);
     }
 
     public boolean book(LocalDateTime start, LocalDateTime end) {
@@ -46,6 +61,62 @@ public class Resource {
     }
 
     public boolean conflicts(LocalDateTime start, LocalDateTime end) {
-        return false;
+        if (start == null || end == null || !end.isAfter(start)) return false;
+        return overlaps(start, end);
+    }
+
+    public List<Map.Entry<LocalDateTime, LocalDateTime>> overlapping(LocalDateTime start, LocalDateTime end) {
+        List<Map.Entry<LocalDateTime, LocalDateTime>> res = new ArrayList<>();
+        if (start == null || end == null || !end.isAfter(start)) return res;
+        LocalDateTime from = bookings.floorKey(start);
+        for (Map.Entry<LocalDateTime, LocalDateTime> e : bookings.subMap(from == null ? start : from, true, end, false).entrySet()) {
+            if (e.getValue().isAfter(start)) res.add(e);
+        }
+        return res;
+    }
+
+    public LocalDateTime nextFreeSlot(LocalDateTime from, Duration length) {
+        return nextFreeSlot(from, length, null);
+    }
+
+    public static Slot firstFreeSlot(Collection<Resource> resources, String type, LocalDateTime from, Duration length) {
+        if (resources == null) return null;
+        Slot best = null;
+        for (Resource r : resources) {
+            if (r == null || (type != null && !type.equals(r.type))) continue;
+            LocalDateTime start = r.nextFreeSlot(from, length, best == null ? null : best.start);
+            if (start != null) best = new Slot(r, start, start.plus(length));
+        }
+        return best;
+    }
+
+    private LocalDateTime nextFreeSlot(LocalDateTime from, Duration length, LocalDateTime before) {
+        if (from == null || length == null || length.isNegative() || length.isZero()) return null;
+        LocalDateTime t = from;
+        Map.Entry<LocalDateTime, LocalDateTime> floor = bookings.floorEntry(t);
+        if (floor != null && floor.getValue().isAfter(t)) t = floor.getValue();
+        for (Map.Entry<LocalDateTime, LocalDateTime> e : bookings.tailMap(t, true).entrySet()) {
+            if (before != null && !t.isBefore(before)) return null;
+            if (!e.getKey().isBefore(t.plus(length))) break;
+            if (e.getValue().isAfter(t)) t = e.getValue();
+        }
+        return before != null && !t.isBefore(before) ? null : t;
+    }
+
+    void feasibleStarts(LocalDateTime from, Duration length, List<LocalDateTime[]> out) {
+        LocalDateTime t = from;
+        Map.Entry<LocalDateTime, LocalDateTime> floor = bookings.floorEntry(t);
+        if (floor != null && floor.getValue().isAfter(t)) t = floor.getValue();
+        for (Map.Entry<LocalDateTime, LocalDateTime> e : bookings.tailMap(t, true).entrySet()) {
+            LocalDateTime last = e.getKey().minus(length);
+            if (!last.isBefore(t)) out.add(new LocalDateTime[] { t, last });
+            if (e.getValue().isAfter(t)) t = e.getValue();
+        }
+        out.add(new LocalDateTime[] { t, LocalDateTime.MAX });
+    }
+
+    private boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        Map.Entry<LocalDateTime, LocalDateTime> e = bookings.lowerEntry(end);
+        return e != null && e.getValue().isAfter(start);
     }
 }
@@ -0,0 +1,457 @@
+package net.mooctest;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ToIntFunction;
+
+public class ResourceConstrainedScheduler {
+    public enum PriorityRule { LATEST_FINISH, LATEST_START, MIN_SLACK, SHORTEST_DURATION, MOST_SUCCESSORS, RANK_POSITIONAL_WEIGHT }
+    public enum Generation { SERIAL, PARALLEL }
+
+    public static final double RANDOM_NOISE = 0.2;
+    public static final long MAX_HORIZON = 1L << 28;
+
+    public static final class Result {
+        private final TaskGraph graph;
+        private final int[] start;
+        private final int makespan;
+        private final PriorityRule rule;
+        private final Generation generation;
+
+        Result(TaskGraph graph, int[] start, int makespan, PriorityRule rule, Generation generation) {
+            this.graph = graph;
+            this.start = start;
+            this.makespan = makespan;
+            this.rule = rule;
+            this.generation = generation;
+        }
+
+        public int getMakespan() { return makespan; }
+        public PriorityRule getRule() { return rule; }
+        public Generation getGeneration() { return generation; }
+
+        public int getStart(Task t) {
+            int i = graph.indexOf(t);
+            if (i < 0) throw new DomainException("task not scheduled");
+            return start[i];
+        }
+    }
+
+    private final int[] capacity;
+    private final ToIntFunction<Task> resource;
+    private final ToIntFunction<Task> demand;
+
+    public ResourceConstrainedScheduler(int capacity) {
+        this(capacity, t -> 1);
+    }
+
+    public ResourceConstrainedScheduler(int capacity, ToIntFunction<Task> demand) {
+        this(new int[] { capacity }, t -> 0, demand);
+        if (capacity <= 0) throw new DomainException("capacity must be positive");
+    }
+
+    private ResourceConstrainedScheduler(int[] capacity, ToIntFunction<Task> resource, ToIntFunction<Task> demand) {
+        if (demand == null) throw new DomainException("demand null");
+        this.capacity = capacity;
+        this.resource = resource;
+        this.demand = demand;
+    }
+
+    /**
+     * One renewable resource per researcher, sized by weekly capacity; a task draws its hours from the
+     * researcher it is assigned to, and unassigned tasks are limited by precedence only.
+     */
+    public static ResourceConstrainedScheduler forResearchers(Collection<Researcher> researchers, ToIntFunction<Task> hours) {
+        if (researchers == null) throw new DomainException("researchers null");
+        Map<Long, Integer> index = new HashMap<>();
+        int[] capacity = new int[researchers.size()];
+        for (Researcher r : researchers) {
+            if (r == null || index.containsKey(r.getId())) continue;
+            capacity[index.size()] = r.getWeeklyCapacity();
+            index.put(r.getId(), index.size());
+        }
+        return new ResourceConstrainedScheduler(Arrays.copyOf(capacity, index.size()), t -> {
+            Long id = t.getAssignedResearcherId();
+            if (id == null) return -1;
+            Integer i = index.get(id);
+            if (i == null) throw new DomainException("task assigned to unknown researcher");
+            return i;
+        }, hours);
+    }
+
+    public Result schedule(Collection<Task> tasks) {
+        return schedule(tasks, PriorityRule.LATEST_FINISH, Generation.SERIAL);
+    }
+
+    public Result schedule(Collection<Task> tasks, PriorityRule rule, Generation generation) {
+        Instance inst = new Instance(TaskGraph.of(tasks));
+        Result r = inst.run(inst.keys(rule, null), rule, generation);
+        inst.write(r);
+        return r;
+    }
+
+    public Result scheduleBest(Collection<Task> tasks, int randomStarts, long seed) {
+        return scheduleBest(TaskGraph.of(tasks), randomStarts, seed, ForkJoinPool.commonPool());
+    }
+
+    public Result scheduleBest(TaskGraph graph, int randomStarts, long seed, ForkJoinPool pool) {
+        Instance inst = new Instance(graph);
+        PriorityRule[] rules = PriorityRule.values();
+        int fixed = rules.length * 2;
+        Result[] results = new Result[fixed + Math.max(0, randomStarts)];
+        Parallel.forRange(pool, 0, results.length, 1, k -> {
+            PriorityRule rule = rules[(k >> 1) % rules.length];
+            if (k < fixed) {
+                Generation g = (k & 1) == 0 ? Generation.SERIAL : Generation.PARALLEL;
+                results[k] = inst.run(inst.keys(rule, null), rule, g);
+            } else {
+                RandomStream rnd = RandomStream.forChunk(seed, k);
+                results[k] = inst.run(inst.keys(rule, rnd), rule, (k & 1) == 0 ? Generation.SERIAL : Generation.PARALLEL);
+            }
+        });
+        Result best = results[0];
+        for (Result r : results) if (r.makespan < best.makespan) best = r;
+        inst.write(best);
+        return best;
+    }
+
+    private final class Instance {
+        private final TaskGraph graph;
+        private final int n;
+        private final int[] duration;
+        private final int[] need;
+        private final int[] res;
+        private final int[] minNeed;
+        private final int unconstrained;
+        private final int[] est;
+        private final int[] lst;
+        private final int[] lft;
+        private final int horizon;
+
+        Instance(TaskGraph graph) {
+            this.graph = graph;
+            this.n = graph.size();
+            this.duration = new int[n];
+            this.need = new int[n];
+            this.res = new int[n];
+            // resources no task draws from keep MAX_VALUE and never count as open
+            this.minNeed = new int[capacity.length];
+            Arrays.fill(minNeed, Integer.MAX_VALUE);
+            long sum = 0;
+            int free = 0;
+            for (int i = 0; i < n; i++) {
+                duration[i] = graph.duration(i);
+                need[i] = Math.max(0, demand.applyAsInt(graph.task(i)));
+                res[i] = need[i] == 0 ? -1 : resource.applyAsInt(graph.task(i));
+                if (res[i] < 0) {
+                    free++;
+                } else {
+                    if (need[i] > capacity[res[i]]) throw new DomainException("task demand exceeds capacity");
+                    minNeed[res[i]] = Math.min(minNeed[res[i]], need[i]);
+                }
+                sum += duration[i];
+            }
+            if (sum >= MAX_HORIZON) throw new DomainException("schedule horizon too large");
+            this.unconstrained = free;
+            this.horizon = (int)sum;
+            this.est = new int[n];
+            this.lst = new int[n];
+            this.lft = new int[n];
+            int finish = graph.earliestFinish(est, new int[n]);
+            graph.latestStart(finish, lst, lft);
+        }
+
+        double[] keys(PriorityRule rule, RandomStream rnd) {
+            double[] key = new double[n];
+            for (int i = 0; i < n; i++) {
+                switch (rule) {
+                    case LATEST_FINISH: key[i] = lft[i]; break;
+                    case LATEST_START: key[i] = lst[i]; break;
+                    case MIN_SLACK: key[i] = lst[i] - est[i]; break;
+                    case SHORTEST_DURATION: key[i] = duration[i]; break;
+                    case MOST_SUCCESSORS: key[i] = -(graph.successorEnd(i) - graph.successorStart(i)); break;
+                    default: {
+                        double w = duration[i];
+                        for (int e = graph.successorStart(i); e < graph.successorEnd(i); e++) w += duration[graph.successor(e)];
+                        key[i] = -w;
+                    }
+                }
+            }
+            if (rnd != null && n > 0) {
+                double lo = key[0];
+                double hi = key[0];
+                for (double k : key) {
+                    lo = Math.min(lo, k);
+                    hi = Math.max(hi, k);
+                }
+                double spread = RANDOM_NOISE * Math.max(1, hi - lo);
+                for (int i = 0; i < n; i++) key[i] += spread * rnd.nextDouble();
+            }
+            return key;
+        }
+
+        Result run(double[] key, PriorityRule rule, Generation generation) {
+            int[] start = generation == Generation.SERIAL ? serial(key) : parallel(key);
+            int makespan = 0;
+            for (int i = 0; i < n; i++) makespan = Math.max(makespan, start[i] + duration[i]);
+            return new Result(graph, start, makespan, rule, generation);
+        }
+
+        private int[] serial(double[] key) {
+            int[] start = new int[n];
+            int[] release = new int[n];
+            int[] pending = new int[n];
+            KeyHeap ready = new KeyHeap(key, n);
+            for (int i = 0; i < n; i++) {
+                pending[i] = graph.predecessorEnd(i) - graph.predecessorStart(i);
+                if (pending[i] == 0) ready.push(i);
+            }
+            UsageTree[] usage = new UsageTree[capacity.length];
+            while (!ready.isEmpty()) {
+                int u = ready.pop();
+                int t = release[u];
+                int d = duration[u];
+                int r = res[u];
+                if (d > 0 && r >= 0) {
+                    if (usage[r] == null) usage[r] = new UsageTree(horizon);
+                    UsageTree tree = usage[r];
+                    int limit = capacity[r] - need[u];
+                    while (true) {
+                        t = tree.firstAtMost(t, limit);
+                        int j = tree.lastAbove(t, t + d, limit);
+                        if (j < 0) break;
+                        t = j + 1;
+                    }
+                    tree.add(t, t + d, need[u]);
+                }
+                start[u] = t;
+                release(u, t + d, release, pending, ready);
+            }
+            return start;
+        }
+
+        private int[] parallel(double[] key) {
+            int[] start = new int[n];
+            int[] release = new int[n];
+            int[] pending = new int[n];
+            double[] releaseKey = new double[n];
+            double[] finishKey = new double[n];
+            KeyHeap waiting = new KeyHeap(releaseKey, n);
+            KeyHeap ready = new KeyHeap(key, n);
+            KeyHeap active = new KeyHeap(finishKey, n);
+            for (int i = 0; i < n; i++) {
+                pending[i] = graph.predecessorEnd(i) - graph.predecessorStart(i);
+                if (pending[i] == 0) waiting.push(i);
+            }
+            int[] deferred = new int[n];
+            int[] free = capacity.clone();
+            // resources that can still fit their smallest task; ready work waits for the next event when none can
+            int open = 0;
+            for (int r = 0; r < free.length; r++) if (free[r] >= minNeed[r]) open++;
+            int t = 0;
+            int done = 0;
+            while (done < n) {
+                while (!active.isEmpty() && finishKey[active.peek()] <= t) {
+                    int u = active.pop();
+                    int r = res[u];
+                    if (free[r] < minNeed[r] && free[r] + need[u] >= minNeed[r]) open++;
+                    free[r] += need[u];
+                }
+                while (!waiting.isEmpty() && release[waiting.peek()] <= t) ready.push(waiting.pop());
+                int nd = 0;
+                while (!ready.isEmpty() && (open > 0 || unconstrained > 0)) {
+                    int u = ready.pop();
+                    int r = res[u];
+                    boolean uses = duration[u] > 0 && r >= 0;
+                    if (uses && need[u] > free[r]) {
+                        deferred[nd++] = u;
+                        continue;
+                    }
+                    start[u] = t;
+                    done++;
+                    if (uses) {
+                        if (free[r] >= minNeed[r] && free[r] - need[u] < minNeed[r]) open--;
+                        free[r] -= need[u];
+                        finishKey[u] = t + duration[u];
+                        active.push(u);
+                    }
+                    releaseInto(u, t + duration[u], release, releaseKey, pending, waiting);
+                    while (!waiting.isEmpty() && release[waiting.peek()] <= t) ready.push(waiting.pop());
+                }
+                for (int k = 0; k < nd; k++) ready.push(deferred[k]);
+                if (done == n) break;
+                int next = Integer.MAX_VALUE;
+                if (!active.isEmpty()) next = (int)finishKey[active.peek()];
+                if (!waiting.isEmpty()) next = Math.min(next, release[waiting.peek()]);
+                if (next == Integer.MAX_VALUE) throw new DomainException("schedule stalled");
+                t = next;
+            }
+            return start;
+        }
+
+        private void release(int u, int finish, int[] release, int[] pending, KeyHeap ready) {
+            for (int e = graph.successorStart(u); e < graph.successorEnd(u); e++) {
+                int v = graph.successor(e);
+                if (finish > release[v]) release[v] = finish;
+                if (--pending[v] == 0) ready.push(v);
+            }
+        }
+
+        private void releaseInto(int u, int finish, int[] release, double[] releaseKey, int[] pending, KeyHeap waiting) {
+            for (int e = graph.successorStart(u); e < graph.successorEnd(u); e++) {
+                int v = graph.successor(e);
+                if (finish > release[v]) release[v] = finish;
+                if (--pending[v] == 0) {
+                    releaseKey[v] = release[v];
+                    waiting.push(v);
+                }
+            }
+        }
+
+        void write(Result r) {
+            for (int i = 0; i < n; i++) {
+                int s = r.start[i];
+                int f = s + duration[i];
+                int latest = r.makespan;
+                for (int e = graph.successorStart(i); e < graph.successorEnd(i); e++) latest = Math.min(latest, r.start[graph.successor(e)]);
+                graph.task(i).setSchedule(s, f, latest - duration[i], latest);
+            }
+        }
+    }
+
+    private static final class KeyHeap {
+        private final double[] key;
+        private final int[] heap;
+        private int size;
+
+        KeyHeap(double[] key, int capacity) {
+            this.key = key;
+            this.heap = new int[Math.max(1, capacity)];
+        }
+
+        boolean isEmpty() { return size == 0; }
+        int size() { return size; }
+        int peek() { return heap[0]; }
+
+        void push(int v) {
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(v, heap[parent])) break;
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = v;
+        }
+
+        int pop() {
+            int top = heap[0];
+            int last = heap[--size];
+            int i = 0;
+            while (true) {
+                int c = 2 * i + 1;
+                if (c >= size) break;
+                if (c + 1 < size && before(heap[c + 1], heap[c])) c++;
+                if (!before(heap[c], last)) break;
+                heap[i] = heap[c];
+                i = c;
+            }
+            if (size > 0) heap[i] = last;
+            return top;
+        }
+
+        private boolean before(int a, int b) {
+            return key[a] < key[b] || (key[a] == key[b] && a < b);
+        }
+    }
+
+    /** Range-add segment tree over the horizon; nodes are created on first update so each researcher pays only for its own intervals. */
+    private static final class UsageTree {
+        private static final int NONE = -1;
+
+        private final int size;
+        private int[] max = new int[16];
+        private int[] min = new int[16];
+        private int[] add = new int[16];
+        private int[] left = new int[16];
+        private int[] right = new int[16];
+        private int nodes;
+
+        UsageTree(int horizon) {
+            int s = 1;
+            while (s < Math.max(1, horizon)) s <<= 1;
+            this.size = s;
+            node();
+        }
+
+        void add(int l, int r, int v) {
+            add(0, 0, size, l, r, v);
+        }
+
+        int lastAbove(int l, int r, int limit) {
+            return lastAbove(0, 0, size, l, r, limit);
+        }
+
+        int firstAtMost(int from, int limit) {
+            int res = firstAtMost(0, 0, size, from, limit);
+            return res < 0 ? size : res;
+        }
+
+        private int node() {
+            if (nodes == max.length) {
+                int cap = nodes * 2;
+                max = Arrays.copyOf(max, cap);
+                min = Arrays.copyOf(min, cap);
+                add = Arrays.copyOf(add, cap);
+                left = Arrays.copyOf(left, cap);
+                right = Arrays.copyOf(right, cap);
+            }
+            left[nodes] = NONE;
+            right[nodes] = NONE;
+            return nodes++;
+        }
+
+        private void add(int node, int nl, int nr, int l, int r, int v) {
+            if (r <= nl || nr <= l) return;
+            if (l <= nl && nr <= r) {
+                max[node] += v;
+                min[node] += v;
+                add[node] += v;
+                return;
+            }
+            int mid = (nl + nr) >>> 1;
+            if (left[node] == NONE) {
+                int c = node();
+                left[node] = c;
+            }
+            if (right[node] == NONE) {
+                int c = node();
+                right[node] = c;
+            }
+            add(left[node], nl, mid, l, r, v);
+            add(right[node], mid, nr, l, r, v);
+            max[node] = Math.max(max[left[node]], max[right[node]]) + add[node];
+            min[node] = Math.min(min[left[node]], min[right[node]]) + add[node];
+        }
+
+        private int firstAtMost(int node, int nl, int nr, int from, int limit) {
+            if (nr <= from) return -1;
+            if (node == NONE) return limit >= 0 ? Math.max(nl, from) : -1;
+            if (min[node] > limit) return -1;
+            if (nr - nl == 1) return nl;
+            int mid = (nl + nr) >>> 1;
+            int res = firstAtMost(left[node], nl, mid, from, limit - add[node]);
+            return res >= 0 ? res : firstAtMost(right[node], mid, nr, from, limit - add[node]);
+        }
+
+        private int lastAbove(int node, int nl, int nr, int l, int r, int limit) {
+            if (r <= nl || nr <= l) return -1;
+            if (node == NONE) return limit < 0 ? Math.min(nr, r) - 1 : -1;
+            if (max[node] <= limit) return -1;
+            if (nr - nl == 1) return nl;
+            int mid = (nl + nr) >>> 1;
+            int res = lastAbove(right[node], mid, nr, l, r, limit - add[node]);
+            return res >= 0 ? res : lastAbove(left[node], nl, mid, l, r, limit - add[node]);
+        }
+    }
+}
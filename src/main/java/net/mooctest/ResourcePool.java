@@ -0,0 +1,113 @@
+package net.mooctest;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+public class ResourcePool {
+    public static final class Window {
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final Map<String, Resource> resources;
+
+        public Window(LocalDateTime start, LocalDateTime end, Map<String, Resource> resources) {
+            this.start = start;
+            this.end = end;
+            this.resources = resources;
+        }
+
+        public LocalDateTime getStart() { return start; }
+        public LocalDateTime getEnd() { return end; }
+        public Map<String, Resource> getResources() { return new LinkedHashMap<>(resources); }
+        public Resource getResource(String type) { return resources.get(type); }
+    }
+
+    private final Map<String, List<Resource>> byType = new LinkedHashMap<>();
+
+    public void add(Resource r) {
+        if (r == null) throw new DomainException("resource null");
+        List<Resource> list = byType.computeIfAbsent(r.getType(), k -> new ArrayList<>());
+        if (!list.contains(r)) list.add(r);
+    }
+
+    public boolean remove(Resource r) {
+        if (r == null) return false;
+        List<Resource> list = byType.get(r.getType());
+        if (list == null || !list.remove(r)) return false;
+        if (list.isEmpty()) byType.remove(r.getType());
+        return true;
+    }
+
+    public Set<String> getTypes() { return new LinkedHashSet<>(byType.keySet()); }
+
+    public List<Resource> getResources(String type) {
+        List<Resource> list = byType.get(type);
+        return list == null ? new ArrayList<>() : new ArrayList<>(list);
+    }
+
+    public Resource.Slot firstFreeSlot(String type, LocalDateTime from, Duration length) {
+        return Resource.firstFreeSlot(byType.get(type), type, from, length);
+    }
+
+    public Window earliestWindow(Collection<String> types, LocalDateTime from, Duration length) {
+        if (types == null || types.isEmpty() || from == null || length == null) return null;
+        if (length.isNegative() || length.isZero()) return null;
+        List<String> wanted = new ArrayList<>(new LinkedHashSet<>(types));
+        List<List<LocalDateTime[]>> starts = new ArrayList<>();
+        for (String type : wanted) {
+            List<Resource> list = byType.get(type);
+            if (list == null || list.isEmpty()) return null;
+            starts.add(feasibleStarts(list, from, length));
+        }
+        LocalDateTime t = sweep(starts);
+        if (t == null) return null;
+        LocalDateTime end = t.plus(length);
+        Map<String, Resource> chosen = new LinkedHashMap<>();
+        for (String type : wanted) {
+            for (Resource r : byType.get(type)) {
+                if (r.isAvailable(t, end)) {
+                    chosen.put(type, r);
+                    break;
+                }
+            }
+        }
+        return new Window(t, end, chosen);
+    }
+
+    private static List<LocalDateTime[]> feasibleStarts(List<Resource> resources, LocalDateTime from, Duration length) {
+        List<LocalDateTime[]> all = new ArrayList<>();
+        for (Resource r : resources) r.feasibleStarts(from, length, all);
+        all.sort((a, b) -> a[0].compareTo(b[0]));
+        List<LocalDateTime[]> merged = new ArrayList<>();
+        for (LocalDateTime[] iv : all) {
+            LocalDateTime[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && !iv[0].isAfter(last[1])) {
+                if (iv[1].isAfter(last[1])) last[1] = iv[1];
+            } else {
+                merged.add(new LocalDateTime[] { iv[0], iv[1] });
+            }
+        }
+        return merged;
+    }
+
+    private static LocalDateTime sweep(List<List<LocalDateTime[]>> lists) {
+        int k = lists.size();
+        int[] pos = new int[k];
+        while (true) {
+            LocalDateTime t = null;
+            for (int i = 0; i < k; i++) {
+                if (pos[i] == lists.get(i).size()) return null;
+                LocalDateTime s = lists.get(i).get(pos[i])[0];
+                if (t == null || s.isAfter(t)) t = s;
+            }
+            boolean all = true;
+            for (int i = 0; i < k; i++) {
+                List<LocalDateTime[]> list = lists.get(i);
+                while (pos[i] < list.size() && list.get(pos[i])[1].isBefore(t)) pos[i]++;
+                if (pos[i] == list.size()) return null;
+                if (list.get(pos[i])[0].isAfter(t)) all = false;
+            }
+            if (all) return t;
+        }
+    }
+}
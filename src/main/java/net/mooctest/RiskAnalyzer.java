@@ -1,25 +1,56 @@
 package net.mooctest;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 public class RiskAnalyzer {
     public static final class SimulationResult {
         private final double meanImpact;
+        private final double p50Impact;
         private final double p90Impact;
+        private final double p95Impact;
+        private final double p99Impact;
         private final double worstCaseImpact;
+        private final QuantileHistogram histogram;
+        private final int iterations;
+        private final boolean converged;
 
         public SimulationResult(double meanImpact, double p90Impact, double worstCaseImpact) {
+            this(meanImpact, 0, p90Impact, 0, 0, worstCaseImpact, null, 0, true);
+        }
+
+        public SimulationResult(double meanImpact, double p50Impact, double p90Impact, double p95Impact,
+                                double p99Impact, double worstCaseImpact, QuantileHistogram histogram,
+                                int iterations, boolean converged) {
             this.meanImpact = meanImpact;
+            this.p50Impact = p50Impact;
             this.p90Impact = p90Impact;
+            this.p95Impact = p95Impact;
+            this.p99Impact = p99Impact;
             this.worstCaseImpact = worstCaseImpact;
+            this.histogram = histogram;
+            this.iterations = iterations;
+            this.converged = converged;
         }
 
         public double getMeanImpact() { return meanImpact; }
+        public double getP50Impact() { return p50Impact; }
         public double getP90Impact() { return p90Impact; }
+        public double getP95Impact() { return p95Impact; }
+        public double getP99Impact() { return p99Impact; }
         public double getWorstCaseImpact() { return worstCaseImpact; }
+        public QuantileHistogram getHistogram() { return histogram; }
+        public int getIterations() { return iterations; }
+        public boolean isConverged() { return converged; }
     }
 
-    private long seed = 2463534242L;
+    public static final long DEFAULT_SEED = 2463534242L;
+    public static final int CHUNK_SIZE = 1 << 14;
+    public static final double Z_95 = 1.959963984540054;
+    public static final int SECTIONS_PER_CHUNK = 16;
+
+    private long seed = DEFAULT_SEED;
 
     public double rnd() {
         seed ^= (seed << 13);
@@ -31,23 +62,250 @@ public class RiskAnalyzer {
 
     public SimulationResult simulate(List<Risk> risks, int iterations) {
         if (risks == null || risks.isEmpty() || iterations <= 0) return new SimulationResult(0, 0, 0);
-        List<Double> impacts = new ArrayList<>();
+        Metrics.Timer t = Metrics.start("risk.simulate");
+        try {
+            Metrics.count("risk.iterations", iterations);
+            return simulateSequential(risks, iterations);
+        } finally {
+            t.close();
+        }
+    }
+
+    private SimulationResult simulateSequential(List<Risk> risks, int iterations) {
+        int n = risks.size();
+        double[] probability = new double[n];
+        double[] impact = new double[n];
+        flatten(risks, probability, impact);
+        double[] impacts = new double[iterations];
+        QuantileHistogram histogram = QuantileHistogram.withRelativeError(QuantileHistogram.DEFAULT_RELATIVE_ERROR);
         double sum = 0;
         double worst = 0;
         for (int i = 0; i < iterations; i++) {
             double scenario = 0;
-            for (Risk r : risks) {
-                double p = r.getProbability();
-                double draw = rnd();
-                if (draw < p) scenario += r.getImpact();
+            for (int k = 0; k < n; k++) {
+                if (rnd() < probability[k]) scenario += impact[k];
             }
-            impacts.add(scenario);
+            impacts[i] = scenario;
+            histogram.add(scenario);
             sum += scenario;
             if (scenario > worst) worst = scenario;
         }
-        Collections.sort(impacts);
         double mean = sum / iterations;
-        double p90 = impacts.get(Math.min(impacts.size() - 1, (int)Math.floor(impacts.size() * 0.9)));
-        return new SimulationResult(mean, p90, worst);
+        double p50 = select(impacts, 0, rank(iterations, 0.5));
+        double p90 = select(impacts, rank(iterations, 0.5), rank(iterations, 0.9));
+        double p95 = select(impacts, rank(iterations, 0.9), rank(iterations, 0.95));
+        double p99 = select(impacts, rank(iterations, 0.95), rank(iterations, 0.99));
+        return new SimulationResult(mean, p50, p90, p95, p99, worst, histogram, iterations, true);
+    }
+
+    public SimulationResult simulateParallel(List<Risk> risks, int iterations) {
+        return simulateParallel(risks, iterations, DEFAULT_SEED, ForkJoinPool.commonPool());
+    }
+
+    public SimulationResult simulateParallel(List<Risk> risks, int iterations, long seed, ForkJoinPool pool) {
+        if (risks == null || risks.isEmpty()) return new SimulationResult(0, 0, 0);
+        return simulateParallel(RiskPortfolio.of(risks), iterations, seed, pool);
+    }
+
+    public SimulationResult simulateCorrelated(List<Risk> risks, Map<String, Double> categoryCorrelation, int iterations) {
+        if (risks == null || risks.isEmpty()) return new SimulationResult(0, 0, 0);
+        return simulateParallel(RiskPortfolio.of(risks, categoryCorrelation), iterations, DEFAULT_SEED, ForkJoinPool.commonPool());
+    }
+
+    public SimulationResult simulateParallel(RiskPortfolio portfolio, int iterations, long seed, ForkJoinPool pool) {
+        if (portfolio == null || portfolio.size() == 0 || iterations <= 0) return new SimulationResult(0, 0, 0);
+        Metrics.Timer t = Metrics.start("risk.simulateParallel");
+        try {
+            Metrics.count("risk.iterations", iterations);
+            return chunked(portfolio, iterations, seed, pool == null ? ForkJoinPool.commonPool() : pool);
+        } finally {
+            t.close();
+        }
+    }
+
+    private SimulationResult chunked(RiskPortfolio portfolio, int iterations, long seed, ForkJoinPool pool) {
+        int chunks = (int)((iterations + (long)CHUNK_SIZE - 1) / CHUNK_SIZE);
+        double[] chunkSum = new double[chunks];
+        double[] chunkSumSq = new double[chunks];
+        QuantileHistogram histogram = pool.invoke(
+                new ChunkTask(portfolio, seed, iterations, chunkSum, chunkSumSq, null, 0, chunks));
+        double sum = 0;
+        for (int c = 0; c < chunks; c++) sum += chunkSum[c];
+        return result(sum / iterations, histogram, iterations, true);
+    }
+
+    public SimulationResult simulateToPrecision(List<Risk> risks, double meanWidth, double p90Width, int maxIterations) {
+        return simulateToPrecision(risks, meanWidth, p90Width, maxIterations, DEFAULT_SEED, ForkJoinPool.commonPool());
+    }
+
+    public SimulationResult simulateToPrecision(List<Risk> risks, double meanWidth, double p90Width, int maxIterations,
+                                                long seed, ForkJoinPool pool) {
+        if (risks == null || risks.isEmpty()) return new SimulationResult(0, 0, 0);
+        return simulateToPrecision(RiskPortfolio.of(risks), meanWidth, p90Width, maxIterations, seed, pool);
+    }
+
+    public SimulationResult simulateToPrecision(RiskPortfolio portfolio, double meanWidth, double p90Width, int maxIterations,
+                                                long seed, ForkJoinPool pool) {
+        if (portfolio == null || portfolio.size() == 0 || maxIterations <= 0) return new SimulationResult(0, 0, 0);
+        Metrics.Timer t = Metrics.start("risk.simulateToPrecision");
+        try {
+            SimulationResult r = adaptive(portfolio, meanWidth, p90Width, maxIterations, seed, pool == null ? ForkJoinPool.commonPool() : pool);
+            Metrics.count("risk.iterations", r.getIterations());
+            return r;
+        } finally {
+            t.close();
+        }
+    }
+
+    private SimulationResult adaptive(RiskPortfolio portfolio, double meanWidth, double p90Width, int maxIterations,
+                                      long seed, ForkJoinPool pool) {
+        int maxChunks = (int)((maxIterations + (long)CHUNK_SIZE - 1) / CHUNK_SIZE);
+        double[] chunkSum = new double[maxChunks];
+        double[] chunkSumSq = new double[maxChunks];
+        double[] sectionP90 = new double[maxChunks * SECTIONS_PER_CHUNK];
+        QuantileHistogram histogram = QuantileHistogram.withRelativeError(QuantileHistogram.DEFAULT_RELATIVE_ERROR);
+        double sum = 0;
+        double sumSq = 0;
+        int done = 0;
+        int batch = 1;
+        while (true) {
+            int to = Math.min(maxChunks, done + batch);
+            histogram.merge(pool.invoke(
+                    new ChunkTask(portfolio, seed, maxIterations, chunkSum, chunkSumSq, sectionP90, done, to)));
+            for (int c = done; c < to; c++) {
+                sum += chunkSum[c];
+                sumSq += chunkSumSq[c];
+            }
+            done = to;
+            int iterations = (int)Math.min(maxIterations, (long)done * CHUNK_SIZE);
+            double mean = sum / iterations;
+            boolean converged = meanInterval(sum, sumSq, iterations) <= Math.max(0, meanWidth)
+                    && p90Interval(sectionP90, iterations) <= Math.max(0, p90Width);
+            if (converged || done == maxChunks) return result(mean, histogram, iterations, converged);
+            batch = done;
+        }
+    }
+
+    private static double meanInterval(double sum, double sumSq, int n) {
+        if (n < 2) return Double.POSITIVE_INFINITY;
+        double variance = Math.max(0, (sumSq - sum * sum / n) / (n - 1));
+        return 2 * Z_95 * Math.sqrt(variance / n);
+    }
+
+    // sectioning: the spread of exact P90s over independent runs of raw samples, so binning cannot fake convergence
+    private static double p90Interval(double[] sectionP90, int iterations) {
+        int sections = (int)(((long)iterations * SECTIONS_PER_CHUNK + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        if (sections < 2) return Double.POSITIVE_INFINITY;
+        double sum = 0;
+        double sumSq = 0;
+        for (int k = 0; k < sections; k++) {
+            sum += sectionP90[k];
+            sumSq += sectionP90[k] * sectionP90[k];
+        }
+        return meanInterval(sum, sumSq, sections);
+    }
+
+    private static SimulationResult result(double mean, QuantileHistogram h, int iterations, boolean converged) {
+        return new SimulationResult(mean, h.quantile(0.5), h.quantile(0.9), h.quantile(0.95), h.quantile(0.99),
+                h.getMax(), h, iterations, converged);
+    }
+
+    private static void flatten(List<Risk> risks, double[] probability, double[] impact) {
+        for (int i = 0; i < probability.length; i++) {
+            Risk r = risks.get(i);
+            probability[i] = r.getProbability();
+            impact[i] = r.getImpact();
+        }
+    }
+
+    private static int rank(int size, double q) {
+        return Math.min(size - 1, (int)Math.floor(size * q));
+    }
+
+    private static double select(double[] a, int from, int k) {
+        int lo = from;
+        int hi = a.length - 1;
+        while (lo < hi) {
+            double pivot = a[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (a[i] < pivot) i++;
+                while (a[j] > pivot) j--;
+                if (i <= j) {
+                    double t = a[i];
+                    a[i] = a[j];
+                    a[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) hi = j;
+            else if (k >= i) lo = i;
+            else break;
+        }
+        return a[k];
+    }
+
+    private static final class ChunkTask extends RecursiveTask<QuantileHistogram> {
+        private static final long serialVersionUID = 1L;
+
+        private final RiskPortfolio portfolio;
+        private final long seed;
+        private final int iterations;
+        private final double[] chunkSum;
+        private final double[] chunkSumSq;
+        private final double[] sectionP90;
+        private final int from;
+        private final int to;
+
+        ChunkTask(RiskPortfolio portfolio, long seed, int iterations, double[] chunkSum, double[] chunkSumSq,
+                  double[] sectionP90, int from, int to) {
+            this.portfolio = portfolio;
+            this.seed = seed;
+            this.iterations = iterations;
+            this.chunkSum = chunkSum;
+            this.chunkSumSq = chunkSumSq;
+            this.sectionP90 = sectionP90;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected QuantileHistogram compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                ChunkTask left = new ChunkTask(portfolio, seed, iterations, chunkSum, chunkSumSq, sectionP90, from, mid);
+                left.fork();
+                QuantileHistogram right = new ChunkTask(portfolio, seed, iterations, chunkSum, chunkSumSq, sectionP90, mid, to).compute();
+                QuantileHistogram merged = left.join();
+                merged.merge(right);
+                return merged;
+            }
+            RandomStream rng = RandomStream.forChunk(seed, from);
+            QuantileHistogram histogram = QuantileHistogram.withRelativeError(QuantileHistogram.DEFAULT_RELATIVE_ERROR);
+            int start = from * CHUNK_SIZE;
+            int end = Math.min(iterations, start + CHUNK_SIZE);
+            double[] raw = sectionP90 == null ? null : new double[end - start];
+            double sum = 0;
+            double sumSq = 0;
+            for (int i = start; i < end; i++) {
+                double scenario = portfolio.sample(rng);
+                histogram.add(scenario);
+                sum += scenario;
+                sumSq += scenario * scenario;
+                if (raw != null) raw[i - start] = scenario;
+            }
+            if (raw != null) {
+                int size = CHUNK_SIZE / SECTIONS_PER_CHUNK;
+                for (int k = 0; k * size < raw.length; k++) {
+                    double[] section = Arrays.copyOfRange(raw, k * size, Math.min(raw.length, (k + 1) * size));
+                    sectionP90[from * SECTIONS_PER_CHUNK + k] = select(section, 0, rank(section.length, 0.9));
+                }
+            }
+            chunkSum[from] = sum;
+            chunkSumSq[from] = sumSq;
+            return histogram;
+        }
     }
 }
@@ -0,0 +1,88 @@
+package net.mooctest;
+
+import java.util.*;
+
+public final class RiskPortfolio {
+    private final String[] categories;
+    private final int[] offsets;
+    private final double[] shockWeight;
+    private final double[] probability;
+    private final double[] impact;
+    private final double[] threshold;
+    private final double upperBound;
+
+    private RiskPortfolio(List<Risk> risks, Map<String, Double> categoryCorrelation) {
+        Map<String, List<Risk>> grouped = new LinkedHashMap<>();
+        for (Risk r : risks) {
+            if (r == null) continue;
+            grouped.computeIfAbsent(r.getCategory(), k -> new ArrayList<>()).add(r);
+        }
+        int c = grouped.size();
+        int n = 0;
+        for (List<Risk> g : grouped.values()) n += g.size();
+        this.categories = new String[c];
+        this.offsets = new int[c + 1];
+        this.shockWeight = new double[c];
+        this.probability = new double[n];
+        this.impact = new double[n];
+        this.threshold = new double[n];
+        double upper = 0;
+        int ci = 0;
+        int k = 0;
+        for (Map.Entry<String, List<Risk>> e : grouped.entrySet()) {
+            Double w = categoryCorrelation == null ? null : categoryCorrelation.get(e.getKey());
+            double weight = w == null || w.isNaN() ? 0 : Math.max(0, Math.min(1, w));
+            categories[ci] = e.getKey();
+            offsets[ci] = k;
+            shockWeight[ci] = weight;
+            for (Risk r : e.getValue()) {
+                probability[k] = r.getProbability();
+                impact[k] = r.getImpact();
+                threshold[k] = weight + (1 - weight) * probability[k];
+                upper += impact[k];
+                k++;
+            }
+            ci++;
+        }
+        offsets[c] = k;
+        this.upperBound = upper;
+    }
+
+    public static RiskPortfolio of(List<Risk> risks) {
+        return of(risks, Collections.<String, Double>emptyMap());
+    }
+
+    public static RiskPortfolio of(List<Risk> risks, Map<String, Double> categoryCorrelation) {
+        if (risks == null) throw new DomainException("risks null");
+        return new RiskPortfolio(risks, categoryCorrelation);
+    }
+
+    public int size() { return probability.length; }
+    public int categoryCount() { return categories.length; }
+    public String getCategory(int c) { return categories[c]; }
+    public int categorySize(int c) { return offsets[c + 1] - offsets[c]; }
+    public double getShockWeight(int c) { return shockWeight[c]; }
+    public double getUpperBound() { return upperBound; }
+
+    public double sample(RandomStream rng) {
+        double scenario = 0;
+        for (int c = 0; c < categories.length; c++) {
+            int from = offsets[c];
+            int to = offsets[c + 1];
+            double w = shockWeight[c];
+            if (w == 0) {
+                for (int k = from; k < to; k++) {
+                    scenario += rng.nextDouble() < probability[k] ? impact[k] : 0;
+                }
+            } else {
+                double shock = rng.nextDouble();
+                for (int k = from; k < to; k++) {
+                    double v = rng.nextDouble();
+                    boolean fired = (v < w & shock < probability[k]) | (v >= w & v < threshold[k]);
+                    scenario += fired ? impact[k] : 0;
+                }
+            }
+        }
+        return scenario;
+    }
+}
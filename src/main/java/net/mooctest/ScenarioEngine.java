@@ -0,0 +1,178 @@
+package net.mooctest;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+public class ScenarioEngine {
+    public static final int PARALLEL_GRAIN = 4;
+
+    public static final class Scenario {
+        private final String name;
+        private final double inflationRate;
+        private final double reserveRatio;
+        private final Map<Task, Integer> durations;
+
+        public Scenario(String name, double inflationRate) {
+            this(name, inflationRate, Double.NaN, null);
+        }
+
+        public Scenario(String name, double inflationRate, double reserveRatio, Map<Task, Integer> durations) {
+            this.name = name == null ? "" : name;
+            this.inflationRate = inflationRate;
+            this.reserveRatio = reserveRatio;
+            this.durations = durations == null ? Collections.<Task, Integer>emptyMap() : new IdentityHashMap<>(durations);
+        }
+
+        public String getName() { return name; }
+        public double getInflationRate() { return inflationRate; }
+        public double getReserveRatio() { return reserveRatio; }
+        public Map<Task, Integer> getDurations() { return Collections.unmodifiableMap(durations); }
+    }
+
+    public static final class ResultTable {
+        private final String[] names;
+        private final double[] forecastCost;
+        private final double[] requiredReserve;
+        private final int[] makespan;
+        private final int baseMakespan;
+
+        ResultTable(int size, int baseMakespan) {
+            this.names = new String[size];
+            this.forecastCost = new double[size];
+            this.requiredReserve = new double[size];
+            this.makespan = new int[size];
+            this.baseMakespan = baseMakespan;
+        }
+
+        public int size() { return names.length; }
+        public String getName(int row) { return names[row]; }
+        public double getForecastCost(int row) { return forecastCost[row]; }
+        public double getRequiredReserve(int row) { return requiredReserve[row]; }
+        public double getTotalExposure(int row) { return forecastCost[row] + requiredReserve[row]; }
+        public int getMakespan(int row) { return makespan[row]; }
+        public int getMakespanDelta(int row) { return makespan[row] - baseMakespan; }
+        public int getBaseMakespan() { return baseMakespan; }
+
+        public int indexOf(String name) {
+            for (int i = 0; i < names.length; i++) if (names[i].equals(name)) return i;
+            return -1;
+        }
+
+        public void writeTo(Appendable out) {
+            try {
+                out.append("scenario\tforecast\treserve\tmakespan\tdelta\n");
+                for (int i = 0; i < names.length; i++) {
+                    out.append(names[i]).append('\t')
+                       .append(String.format("%.2f", forecastCost[i])).append('\t')
+                       .append(String.format("%.2f", requiredReserve[i])).append('\t')
+                       .append(String.valueOf(makespan[i])).append('\t')
+                       .append(String.valueOf(makespan[i] - baseMakespan)).append('\n');
+                }
+            } catch (IOException e) {
+                throw new DomainException("scenario table write failed", e);
+            }
+        }
+    }
+
+    /** Base schedule for one schedule version; never mutated once published, so workers share it freely. */
+    private static final class Compiled {
+        private final long version;
+        private final TaskGraph graph;
+        private final int[] order;
+        private final int[] position;
+        private final int[] baseDuration;
+        private final int[] baseEft;
+        private final int baseMakespan;
+
+        Compiled(long version, TaskGraph graph) {
+            int n = graph.size();
+            this.version = version;
+            this.graph = graph;
+            this.order = graph.topologicalOrder();
+            this.position = new int[n];
+            for (int k = 0; k < n; k++) position[order[k]] = k;
+            this.baseDuration = new int[n];
+            for (int u = 0; u < n; u++) baseDuration[u] = graph.duration(u);
+            this.baseEft = new int[n];
+            this.baseMakespan = finishFrom(0, baseDuration, baseEft, 0);
+        }
+
+        int makespan(Map<Task, Integer> overrides) {
+            if (overrides.isEmpty()) return baseMakespan;
+            int[] dur = baseDuration.clone();
+            int first = order.length;
+            boolean changed = false;
+            for (Map.Entry<Task, Integer> e : overrides.entrySet()) {
+                int u = graph.indexOf(e.getKey());
+                if (u < 0) throw new DomainException("task not in project");
+                int d = e.getValue() == null ? dur[u] : Math.max(0, e.getValue());
+                if (d == dur[u]) continue;
+                dur[u] = d;
+                changed = true;
+                first = Math.min(first, position[u]);
+            }
+            if (!changed) return baseMakespan;
+            int[] eft = baseEft.clone();
+            int best = 0;
+            for (int k = 0; k < first; k++) best = Math.max(best, eft[order[k]]);
+            return finishFrom(first, dur, eft, best);
+        }
+
+        private int finishFrom(int first, int[] dur, int[] eft, int best) {
+            for (int k = first; k < order.length; k++) {
+                int u = order[k];
+                int start = 0;
+                for (int e = graph.predecessorStart(u); e < graph.predecessorEnd(u); e++) start = Math.max(start, eft[graph.predecessor(e)]);
+                eft[u] = start + dur[u];
+                if (eft[u] > best) best = eft[u];
+            }
+            return best;
+        }
+    }
+
+    private final Project project;
+    private volatile Compiled compiled;
+
+    public ScenarioEngine(Project project) {
+        if (project == null) throw new DomainException("project null");
+        this.project = project;
+    }
+
+    public ResultTable evaluate(List<Scenario> scenarios) {
+        return evaluate(scenarios, ForkJoinPool.commonPool());
+    }
+
+    public ResultTable evaluate(List<Scenario> scenarios, ForkJoinPool pool) {
+        if (scenarios == null) throw new DomainException("scenarios null");
+        Compiled c = compile();
+        Scenario[] all = scenarios.toArray(new Scenario[0]);
+        Budget budget = project.getBudget();
+        double cost = budget.totalCost();
+        double ratio = budget.reserveRatio();
+        ResultTable table = new ResultTable(all.length, c.baseMakespan);
+        Parallel.forRange(pool, 0, all.length, PARALLEL_GRAIN, i -> {
+            Scenario s = all[i];
+            if (s == null) throw new DomainException("scenario null");
+            table.names[i] = s.name;
+            table.forecastCost[i] = Budget.forecast(cost, s.inflationRate);
+            table.requiredReserve[i] = Budget.reserve(cost, Double.isNaN(s.reserveRatio) ? ratio : Budget.clampReserveRatio(s.reserveRatio));
+            table.makespan[i] = c.makespan(s.durations);
+        });
+        return table;
+    }
+
+    private Compiled compile() {
+        long v = project.scheduleVersion();
+        Compiled c = compiled;
+        if (c != null && c.version == v) return c;
+        synchronized (this) {
+            c = compiled;
+            if (c != null && c.version == v) return c;
+            ProjectSnapshot snap = project.snapshot();
+            c = new Compiled(snap.scheduleVersion(), snap.graph());
+            compiled = c;
+            return c;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package net.mooctest;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class ScheduleSimulator {
+    public enum Distribution { TRIANGULAR, PERT }
+
+    public static final int CHUNK_SIZE = 1 << 12;
+    public static final long DEFAULT_SEED = 0x5DEECE66DL;
+
+    public static final class Estimate {
+        private final double min;
+        private final double mode;
+        private final double max;
+        private final Distribution distribution;
+
+        public Estimate(double min, double mode, double max, Distribution distribution) {
+            if (!(min >= 0) || mode < min || max < mode || Double.isInfinite(max)) throw new DomainException("estimate invalid");
+            this.min = min;
+            this.mode = mode;
+            this.max = max;
+            this.distribution = distribution == null ? Distribution.PERT : distribution;
+        }
+
+        public double getMin() { return min; }
+        public double getMode() { return mode; }
+        public double getMax() { return max; }
+        public Distribution getDistribution() { return distribution; }
+
+        public double mean() {
+            if (distribution == Distribution.TRIANGULAR) return (min + mode + max) / 3;
+            return (min + 4 * mode + max) / 6;
+        }
+    }
+
+    public static final class Result {
+        private final TaskGraph graph;
+        private final QuantileHistogram histogram;
+        private final double mean;
+        private final double[] criticality;
+        private final int iterations;
+
+        Result(TaskGraph graph, QuantileHistogram histogram, double mean, double[] criticality, int iterations) {
+            this.graph = graph;
+            this.histogram = histogram;
+            this.mean = mean;
+            this.criticality = criticality;
+            this.iterations = iterations;
+        }
+
+        public double getMeanDuration() { return mean; }
+        public double getP50Duration() { return histogram.quantile(0.5); }
+        public double getP80Duration() { return histogram.quantile(0.8); }
+        public double getP90Duration() { return histogram.quantile(0.9); }
+        public double getP95Duration() { return histogram.quantile(0.95); }
+        public double getQuantile(double q) { return histogram.quantile(q); }
+        public double getWorstCaseDuration() { return histogram.getMax(); }
+        public QuantileHistogram getHistogram() { return histogram; }
+        public int getIterations() { return iterations; }
+
+        public double getCriticality(Task t) {
+            int i = graph.indexOf(t);
+            if (i < 0) throw new DomainException("task not simulated");
+            return criticality[i];
+        }
+    }
+
+    private final TaskGraph graph;
+    private final int n;
+    private final int[] node;
+    private final int[] predStart;
+    private final int[] preds;
+    private final double[] low;
+    private final double[] mode;
+    private final double[] high;
+    private final byte[] kind;
+    private final double[] alphaD;
+    private final double[] alphaC;
+    private final double[] betaD;
+    private final double[] betaC;
+
+    public ScheduleSimulator(Collection<Task> tasks, Map<Task, Estimate> estimates) {
+        this(TaskGraph.of(tasks), estimates);
+    }
+
+    public ScheduleSimulator(TaskGraph graph, Map<Task, Estimate> estimates) {
+        if (graph == null) throw new DomainException("graph null");
+        this.graph = graph;
+        this.n = graph.size();
+        this.node = graph.topologicalOrder();
+        int[] pos = new int[n];
+        for (int k = 0; k < n; k++) pos[node[k]] = k;
+        this.predStart = new int[n + 1];
+        this.preds = new int[graph.edgeCount()];
+        int e = 0;
+        for (int k = 0; k < n; k++) {
+            int u = node[k];
+            for (int p = graph.predecessorStart(u); p < graph.predecessorEnd(u); p++) preds[e++] = pos[graph.predecessor(p)];
+            predStart[k + 1] = e;
+        }
+        this.low = new double[n];
+        this.mode = new double[n];
+        this.high = new double[n];
+        this.kind = new byte[n];
+        this.alphaD = new double[n];
+        this.alphaC = new double[n];
+        this.betaD = new double[n];
+        this.betaC = new double[n];
+        for (int k = 0; k < n; k++) {
+            Task t = graph.task(node[k]);
+            Estimate est = estimates == null ? null : estimates.get(t);
+            if (est == null || est.max == est.min) {
+                double d = est == null ? t.getDuration() : est.min;
+                low[k] = d;
+                mode[k] = d;
+                high[k] = d;
+                continue;
+            }
+            low[k] = est.min;
+            mode[k] = est.mode;
+            high[k] = est.max;
+            if (est.distribution == Distribution.TRIANGULAR) {
+                kind[k] = 1;
+            } else {
+                kind[k] = 2;
+                double range = est.max - est.min;
+                alphaD[k] = 1 + 4 * (est.mode - est.min) / range - 1.0 / 3;
+                betaD[k] = 1 + 4 * (est.max - est.mode) / range - 1.0 / 3;
+                alphaC[k] = 1 / Math.sqrt(9 * alphaD[k]);
+                betaC[k] = 1 / Math.sqrt(9 * betaD[k]);
+            }
+        }
+    }
+
+    public Result simulate(int iterations) {
+        return simulate(iterations, DEFAULT_SEED, ForkJoinPool.commonPool());
+    }
+
+    public Result simulate(int iterations, long seed, ForkJoinPool pool) {
+        if (iterations <= 0) throw new DomainException("iterations must be positive");
+        if (pool == null) pool = ForkJoinPool.commonPool();
+        int chunks = (int)((iterations + (long)CHUNK_SIZE - 1) / CHUNK_SIZE);
+        Partial total = pool.invoke(new ChunkTask(seed, iterations, 0, chunks));
+        double[] criticality = new double[n];
+        for (int k = 0; k < n; k++) criticality[node[k]] = total.critical[k] / (double)iterations;
+        return new Result(graph, total.histogram, total.sum / iterations, criticality, iterations);
+    }
+
+    private Partial runChunk(long seed, int chunk, int count) {
+        Sampler rng = new Sampler(RandomStream.forChunk(seed, chunk));
+        Partial part = new Partial(QuantileHistogram.withRelativeError(QuantileHistogram.DEFAULT_RELATIVE_ERROR), new long[n]);
+        double[] finish = new double[n];
+        int[] via = new int[n];
+        for (int it = 0; it < count; it++) {
+            double best = 0;
+            int sink = -1;
+            for (int k = 0; k < n; k++) {
+                double start = 0;
+                int from = -1;
+                for (int p = predStart[k]; p < predStart[k + 1]; p++) {
+                    double f = finish[preds[p]];
+                    if (f > start || from < 0) {
+                        start = f;
+                        from = preds[p];
+                    }
+                }
+                via[k] = from;
+                finish[k] = start + sample(k, rng);
+                if (finish[k] > best || sink < 0) {
+                    best = finish[k];
+                    sink = k;
+                }
+            }
+            for (int k = sink; k >= 0; k = via[k]) part.critical[k]++;
+            part.histogram.add(best);
+            part.sum += best;
+        }
+        return part;
+    }
+
+    private double sample(int k, Sampler rng) {
+        switch (kind[k]) {
+            case 1: {
+                double a = low[k];
+                double c = mode[k];
+                double b = high[k];
+                double u = rng.uniform();
+                if (u < (c - a) / (b - a)) return a + Math.sqrt(u * (b - a) * (c - a));
+                return b - Math.sqrt((1 - u) * (b - a) * (b - c));
+            }
+            case 2: {
+                double x = rng.gamma(alphaD[k], alphaC[k]);
+                double y = rng.gamma(betaD[k], betaC[k]);
+                return low[k] + (high[k] - low[k]) * x / (x + y);
+            }
+            default:
+                return low[k];
+        }
+    }
+
+    private static final class Sampler {
+        private final RandomStream stream;
+        private double spare;
+        private boolean hasSpare;
+
+        Sampler(RandomStream stream) {
+            this.stream = stream;
+        }
+
+        double uniform() {
+            return stream.nextDouble();
+        }
+
+        double normal() {
+            if (hasSpare) {
+                hasSpare = false;
+                return spare;
+            }
+            double u;
+            double v;
+            double s;
+            do {
+                u = 2 * stream.nextDouble() - 1;
+                v = 2 * stream.nextDouble() - 1;
+                s = u * u + v * v;
+            } while (s >= 1 || s == 0);
+            double m = Math.sqrt(-2 * Math.log(s) / s);
+            spare = v * m;
+            hasSpare = true;
+            return u * m;
+        }
+
+        double gamma(double d, double c) {
+            while (true) {
+                double x = normal();
+                double v = 1 + c * x;
+                if (v <= 0) continue;
+                v = v * v * v;
+                double u = stream.nextDouble();
+                if (u < 1 - 0.0331 * x * x * x * x) return d * v;
+                if (Math.log(u) < 0.5 * x * x + d * (1 - v + Math.log(v))) return d * v;
+            }
+        }
+    }
+
+    private static final class Partial {
+        final QuantileHistogram histogram;
+        final long[] critical;
+        double sum;
+
+        Partial(QuantileHistogram histogram, long[] critical) {
+            this.histogram = histogram;
+            this.critical = critical;
+        }
+
+        void merge(Partial o) {
+            histogram.merge(o.histogram);
+            for (int k = 0; k < critical.length; k++) critical[k] += o.critical[k];
+            sum += o.sum;
+        }
+    }
+
+    private final class ChunkTask extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 1L;
+
+        private final long seed;
+        private final int iterations;
+        private final int from;
+        private final int to;
+
+        ChunkTask(long seed, int iterations, int from, int to) {
+            this.seed = seed;
+            this.iterations = iterations;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                ChunkTask left = new ChunkTask(seed, iterations, from, mid);
+                left.fork();
+                Partial right = new ChunkTask(seed, iterations, mid, to).compute();
+                Partial merged = left.join();
+                merged.merge(right);
+                return merged;
+            }
+            int start = from * CHUNK_SIZE;
+            return runChunk(seed, from, Math.min(iterations, start + CHUNK_SIZE) - start);
+        }
+    }
+}
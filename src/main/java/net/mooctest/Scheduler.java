@@ -1,29 +1,152 @@
 package net.mooctest;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class Scheduler {
+    public static final int PARALLEL_THRESHOLD = 4096;
+
     public void schedule(Collection<Task> tasks) {
-        List<Task> order = GraphUtils.topologicalSort(tasks);
-        Map<Task, Integer> finish = new HashMap<>();
-        for (Task t : order) {
-            int est = 0;
-            for (Task d : t.getDependencies()) est = Math.max(est, finish.getOrDefault(d, 0));
-            int eft = est + t.getDuration();
-            t.setSchedule(est, eft, est, eft);
-            finish.put(t, eft);
+        schedule(compile(tasks));
+    }
+
+    /**
+     * Computes the schedule of every task in the graph but only records it on the tasks the graph was
+     * built from; prerequisites outside that set keep their schedule and their observers stay silent.
+     */
+    public int schedule(TaskGraph graph) {
+        Metrics.Timer t = Metrics.start("scheduler.schedule");
+        try {
+            int n = graph.size();
+            int[] est = new int[n];
+            int[] eft = new int[n];
+            int[] lst = new int[n];
+            int[] lft = new int[n];
+            int projectFinish = graph.earliestFinish(est, eft);
+            graph.latestStart(projectFinish, lst, lft);
+            for (int i = 0; i < graph.inputSize(); i++) graph.task(i).setSchedule(est[i], eft[i], lst[i], lft[i]);
+            Metrics.count("scheduler.tasks", n);
+            return projectFinish;
+        } finally {
+            t.close();
+        }
+    }
+
+    public int schedule(ProjectSnapshot snapshot) {
+        if (snapshot == null) throw new DomainException("snapshot null");
+        return schedule(snapshot.graph());
+    }
+
+    public void scheduleParallel(Collection<Task> tasks) {
+        scheduleParallel(compile(tasks), ForkJoinPool.commonPool());
+    }
+
+    public int scheduleParallel(TaskGraph graph, ForkJoinPool pool) {
+        Metrics.Timer t = Metrics.start("scheduler.scheduleParallel");
+        try {
+            Metrics.count("scheduler.tasks", graph.size());
+            return levelSchedule(graph, pool == null ? ForkJoinPool.commonPool() : pool);
+        } finally {
+            t.close();
+        }
+    }
+
+    public int scheduleParallel(ProjectSnapshot snapshot, ForkJoinPool pool) {
+        if (snapshot == null) throw new DomainException("snapshot null");
+        return scheduleParallel(snapshot.graph(), pool);
+    }
+
+    private static TaskGraph compile(Collection<Task> tasks) {
+        Metrics.Timer t = Metrics.start("scheduler.compile");
+        try {
+            return TaskGraph.of(tasks);
+        } finally {
+            t.close();
+        }
+    }
+
+    private int levelSchedule(TaskGraph graph, ForkJoinPool pool) {
+        int n = graph.size();
+        int[] est = new int[n];
+        int[] eft = new int[n];
+        int[] lst = new int[n];
+        int[] lft = new int[n];
+        int levels = graph.levelCount();
+        for (int l = 0; l < levels; l++) {
+            run(pool, new LevelPass(graph, Pass.FORWARD, est, eft, lst, lft, 0, graph.levelStart(l), graph.levelEnd(l)));
         }
         int projectFinish = 0;
-        for (int v : finish.values()) projectFinish = Math.max(projectFinish, v);
-        ListIterator<Task> it = order.listIterator(order.size());
-        Map<Task, Integer> startLatest = new HashMap<>();
-        while (it.hasPrevious()) {
-            Task t = it.previous();
-            int lft = projectFinish;
-            for (Task d : t.getDependencies()) lft = Math.min(lft, startLatest.getOrDefault(d, projectFinish));
-            int lst = Math.max(0, lft - t.getDuration());
-            t.setSchedule(t.getEst(), t.getEft(), lst, lft);
-            startLatest.put(t, lst);
+        for (int i = 0; i < n; i++) projectFinish = Math.max(projectFinish, eft[i]);
+        for (int l = levels - 1; l >= 0; l--) {
+            run(pool, new LevelPass(graph, Pass.BACKWARD, est, eft, lst, lft, projectFinish, graph.levelStart(l), graph.levelEnd(l)));
+        }
+        run(pool, new LevelPass(graph, Pass.WRITE, est, eft, lst, lft, projectFinish, 0, graph.inputSize()));
+        return projectFinish;
+    }
+
+    private static void run(ForkJoinPool pool, LevelPass pass) {
+        if (pass.to - pass.from <= PARALLEL_THRESHOLD) pass.compute();
+        else pool.invoke(pass);
+    }
+
+    private enum Pass { FORWARD, BACKWARD, WRITE }
+
+    private static final class LevelPass extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final TaskGraph graph;
+        private final Pass pass;
+        private final int[] est;
+        private final int[] eft;
+        private final int[] lst;
+        private final int[] lft;
+        private final int projectFinish;
+        private final int from;
+        private final int to;
+
+        LevelPass(TaskGraph graph, Pass pass, int[] est, int[] eft, int[] lst, int[] lft, int projectFinish, int from, int to) {
+            this.graph = graph;
+            this.pass = pass;
+            this.est = est;
+            this.eft = eft;
+            this.lst = lst;
+            this.lft = lft;
+            this.projectFinish = projectFinish;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > PARALLEL_THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new LevelPass(graph, pass, est, eft, lst, lft, projectFinish, from, mid),
+                        new LevelPass(graph, pass, est, eft, lst, lft, projectFinish, mid, to));
+                return;
+            }
+            for (int k = from; k < to; k++) {
+                if (pass == Pass.WRITE) {
+                    graph.task(k).setSchedule(est[k], eft[k], lst[k], lft[k]);
+                    continue;
+                }
+                int u = graph.levelNode(k);
+                if (pass == Pass.FORWARD) {
+                    int start = 0;
+                    for (int e = graph.predecessorStart(u); e < graph.predecessorEnd(u); e++) {
+                        start = Math.max(start, eft[graph.predecessor(e)]);
+                    }
+                    est[u] = start;
+                    eft[u] = start + graph.duration(u);
+                } else {
+                    int finish = projectFinish;
+                    for (int e = graph.successorStart(u); e < graph.successorEnd(u); e++) {
+                        finish = Math.min(finish, lst[graph.successor(e)]);
+                    }
+                    lft[u] = finish;
+                    lst[u] = Math.max(0, finish - graph.duration(u));
+                }
+            }
         }
     }
 }
@@ -0,0 +1,6 @@
+package net.mooctest;
+
+public interface ScoreFunction {
+    /** Score of giving the task to the researcher; only positive scores are considered by the optimal matcher. */
+    double score(Researcher r, Task t);
+}
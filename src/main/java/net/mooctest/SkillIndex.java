@@ -0,0 +1,71 @@
+package net.mooctest;
+
+import java.util.*;
+
+public final class SkillIndex {
+    public static final int MAX_LEVEL = 10;
+
+    private final Researcher[] researchers;
+    private final long[] all;
+    private final Map<String, long[][]> bands = new HashMap<>();
+
+    private SkillIndex(Researcher[] researchers) {
+        this.researchers = researchers;
+        int words = (researchers.length + 63) >>> 6;
+        this.all = new long[words];
+        for (int i = 0; i < researchers.length; i++) {
+            Researcher r = researchers[i];
+            if (r == null) continue;
+            all[i >>> 6] |= 1L << i;
+            for (String skill : r.getSkills()) {
+                int level = Math.min(MAX_LEVEL, r.getSkillLevel(skill));
+                if (level <= 0) continue;
+                long[][] b = bands.computeIfAbsent(skill, k -> new long[MAX_LEVEL][]);
+                for (int l = 0; l < level; l++) {
+                    if (b[l] == null) b[l] = new long[words];
+                    b[l][i >>> 6] |= 1L << i;
+                }
+            }
+        }
+    }
+
+    public static SkillIndex of(Collection<Researcher> researchers) {
+        if (researchers == null) throw new DomainException("researchers null");
+        return new SkillIndex(researchers.toArray(new Researcher[0]));
+    }
+
+    public int size() { return researchers.length; }
+    public Researcher researcher(int i) { return researchers[i]; }
+    public long[] mask() { return all.clone(); }
+
+    public long[] candidates(Task t) {
+        return candidates(t, all);
+    }
+
+    public long[] candidates(Task t, long[] mask) {
+        long[] res = new long[all.length];
+        if (t == null) return res;
+        for (int w = 0; w < res.length; w++) res[w] = all[w] & mask[w];
+        for (Map.Entry<String, Integer> e : t.getRequiredSkills().entrySet()) {
+            int level = Math.min(MAX_LEVEL, e.getValue());
+            if (level <= 0) continue;
+            long[][] b = bands.get(e.getKey());
+            long[] band = b == null ? null : b[level - 1];
+            if (band == null) return new long[all.length];
+            for (int w = 0; w < res.length; w++) res[w] &= band[w];
+        }
+        return res;
+    }
+
+    public int[] candidateIndices(Task t) {
+        long[] bits = candidates(t);
+        int n = 0;
+        for (long w : bits) n += Long.bitCount(w);
+        int[] res = new int[n];
+        int k = 0;
+        for (int w = 0; w < bits.length; w++) {
+            for (long b = bits[w]; b != 0; b &= b - 1) res[k++] = (w << 6) + Long.numberOfTrailingZeros(b);
+        }
+        return res;
+    }
+}
@@ -1,33 +1,49 @@
 package net.mooctest;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 public class Task {
     public enum Status { PLANNED, IN_PROGRESS, BLOCKED, DONE, CANCELLED }
     public enum Priority { LOW, MEDIUM, HIGH, CRITICAL }
 
+    private static final AtomicReferenceFieldUpdater<Task, Status> STATUS =
+            AtomicReferenceFieldUpdater.newUpdater(Task.class, Status.class, "status");
+
     private final long id;
-    private String name;
-    private int duration;
-    private Status status;
-    private Priority priority;
+    private volatile String name;
+    private volatile int duration;
+    private volatile Status status;
+    private volatile Priority priority;
     private final Set<Task> dependencies;
+    private final Set<Task> dependents;
+    private volatile long rank;
+    private volatile OnlineTopologicalOrder.Component component;
     private final Map<String, Integer> requiredSkills;
-    private int est;
-    private int eft;
-    private int lst;
-    private int lft;
-    private double progress;
-    private Long assignedResearcherId;
+    private static final int[] UNSCHEDULED = new int[4];
+
+    // est, eft, lst, lft published together so readers never see a torn schedule
+    private volatile int[] schedule = UNSCHEDULED;
+    private volatile double progress;
+    private volatile Long assignedResearcherId;
+    private volatile List<TaskObserver> observers = Collections.emptyList();
 
     public Task(String name, int duration, Priority priority) {
-        this.id = IdGenerator.nextId();
+        this(IdGenerator.nextId(), name, duration, priority);
+    }
+
+    Task(long id, String name, int duration, Priority priority) {
+        this.id = id;
         this.name = name == null ? "" : name;
         this.duration = Math.max(0, duration);
         this.priority = priority == null ? Priority.MEDIUM : priority;
         this.status = Status.PLANNED;
-        this.dependencies = new HashSet<>();
-        this.requiredSkills = new HashMap<>();
+        this.dependencies = ConcurrentHashMap.newKeySet();
+        this.dependents = ConcurrentHashMap.newKeySet();
+        this.rank = OnlineTopologicalOrder.nextRank();
+        this.component = new OnlineTopologicalOrder.Component(this);
+        this.requiredSkills = new ConcurrentHashMap<>();
     }
 
     public long getId() { return id; }
@@ -36,30 +52,59 @@ public class Task {
     public Status getStatus() { return status; }
     public Priority getPriority() { return priority; }
     public Set<Task> getDependencies() { return new HashSet<>(dependencies); }
+    Set<Task> dependencySet() { return dependencies; }
+    Task[] dependencyArray() { return dependencies.toArray(new Task[0]); }
+    Set<Task> dependentSet() { return dependents; }
+    long rank() { return rank; }
+    void setRank(long r) { this.rank = r; }
+    OnlineTopologicalOrder.Component component() { return component; }
+    void setComponent(OnlineTopologicalOrder.Component c) { this.component = c; }
     public Map<String, Integer> getRequiredSkills() { return new HashMap<>(requiredSkills); }
-    public int getEst() { return est; }
-    public int getEft() { return eft; }
-    public int getLst() { return lst; }
-    public int getLft() { return lft; }
+    public int getEst() { return schedule[0]; }
+    public int getEft() { return schedule[1]; }
+    public int getLst() { return schedule[2]; }
+    public int getLft() { return schedule[3]; }
     public double getProgress() { return progress; }
     public Long getAssignedResearcherId() { return assignedResearcherId; }
 
-    public void setName(String n) { this.name = n == null ? "" : n; }
-    public void setDuration(int d) { this.duration = Math.max(0, d); }
-    public void setPriority(Priority p) { this.priority = p == null ? Priority.MEDIUM : p; }
+    public void setName(String n) {
+        String nn = n == null ? "" : n;
+        if (nn.equals(name)) return;
+        this.name = nn;
+        for (TaskObserver o : observers) o.fieldsChanged(this);
+    }
+
+    public void setDuration(int d) {
+        int nd = Math.max(0, d);
+        synchronized (this) {
+            if (nd == duration) return;
+            this.duration = nd;
+        }
+        for (TaskObserver o : observers) o.scheduleChanged(this);
+    }
+
+    public void setPriority(Priority p) {
+        Priority np = p == null ? Priority.MEDIUM : p;
+        if (np == priority) return;
+        this.priority = np;
+        for (TaskObserver o : observers) o.fieldsChanged(this);
+    }
 
     public void requireSkill(String skill, int level) {
         if (skill == null || skill.isEmpty()) return;
         if (level < 0) level = 0;
         if (level > 10) level = 10;
         Integer old = requiredSkills.get(skill);
-        if (old == null) requiredSkills.put(skill, level);
-        else requiredSkills.put(skill, Math.max(level, old));
+        if (old != null && old >= level) return;
+        requiredSkills.merge(skill, level, Math::max);
+        for (TaskObserver o : observers) o.fieldsChanged(this);
     }
 
     public boolean addDependency(Task t) {
         if (t == null || t == this) return false;
-        return dependencies.add(t);
+        if (!OnlineTopologicalOrder.addEdge(t, this)) return false;
+        for (TaskObserver o : observers) o.dependencyAdded(this, t);
+        return true;
     }
 
     public boolean dependsOn(Task t) {
@@ -68,17 +113,50 @@ public class Task {
     }
 
     public void setSchedule(int est, int eft, int lst, int lft) {
-        this.est = Math.max(0, est);
-        this.eft = Math.max(this.est, eft);
-        this.lft = Math.max(this.eft, lft);
-        this.lst = Math.max(0, lst);
+        est = Math.max(0, est);
+        eft = Math.max(est, eft);
+        this.schedule = new int[] { est, eft, Math.max(0, lst), Math.max(eft, lft) };
+    }
+
+    public int slack() {
+        int[] s = schedule;
+        return Math.max(0, s[2] - s[0]);
+    }
+
+    public void start() { transition(Status.PLANNED, Status.IN_PROGRESS); }
+    public void cancel() { transition(Status.CANCELLED); }
+    public void complete() { transition(Status.DONE); }
+
+    void restoreStatus(Status to) {
+        if (to != null) transition(to);
+    }
+
+    public boolean transition(Status expected, Status to) {
+        if (expected == null || to == null || expected == to) return false;
+        if (!STATUS.compareAndSet(this, expected, to)) return false;
+        for (TaskObserver o : observers) o.statusChanged(this, expected, to);
+        return true;
     }
 
-    public int slack() { return Math.max(0, lst - est); }
+    private void transition(Status to) {
+        while (true) {
+            Status from = status;
+            if (from == to) return;
+            if (transition(from, to)) return;
+        }
+    }
 
-    public void start() { if (status == Status.PLANNED) status = Status.IN_PROGRESS; }
-    public void cancel() { status = Status.CANCELLED; }
-    public void complete() { status = Status.DONE; }
+    synchronized void addObserver(TaskObserver o) {
+        List<TaskObserver> next = new ArrayList<>(observers.size() + 1);
+        next.addAll(observers);
+        next.add(o);
+        observers = next;
+    }
+
+    synchronized void removeObserver(TaskObserver o) {
+        List<TaskObserver> next = new ArrayList<>(observers);
+        if (next.remove(o)) observers = next.isEmpty() ? Collections.<TaskObserver>emptyList() : next;
+    }
 
     public void updateProgress(double p) {
         if (p < 0) p = 0;
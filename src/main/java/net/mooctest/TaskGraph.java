@@ -0,0 +1,228 @@
+package net.mooctest;
+
+import java.util.*;
+
+public final class TaskGraph {
+    private final Task[] tasks;
+    private final int inputSize;
+    private final Map<Task, Integer> index;
+    private final int[] durations;
+    private final int[] predOffsets;
+    private final int[] preds;
+    private final int[] succOffsets;
+    private final int[] succs;
+    // computed on first use; volatile because a snapshot's graph is shared between threads
+    private volatile int[] order;
+    private volatile int[] levelOffsets;
+    private volatile int[] levelNodes;
+
+    private TaskGraph(Task[] tasks, int inputSize, Task[][] deps, Map<Task, Integer> index) {
+        int n = tasks.length;
+        this.tasks = tasks;
+        this.inputSize = inputSize;
+        this.index = index;
+        this.durations = new int[n];
+        this.predOffsets = new int[n + 1];
+        int edges = 0;
+        for (int i = 0; i < n; i++) {
+            durations[i] = tasks[i].getDuration();
+            edges += deps[i].length;
+            predOffsets[i + 1] = edges;
+        }
+        this.preds = new int[edges];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            for (Task d : deps[i]) preds[k++] = index.get(d);
+        }
+        this.succOffsets = new int[n + 1];
+        this.succs = new int[edges];
+        invert();
+    }
+
+    private TaskGraph(Task[] tasks, int inputSize, Map<Task, Integer> index, int[] durations, int[] predOffsets, int[] preds) {
+        this.tasks = tasks;
+        this.inputSize = inputSize;
+        this.index = index;
+        this.durations = durations;
+        this.predOffsets = predOffsets;
+        this.preds = preds;
+        this.succOffsets = new int[tasks.length + 1];
+        this.succs = new int[preds.length];
+        invert();
+    }
+
+    private void invert() {
+        int n = tasks.length;
+        for (int e = 0; e < preds.length; e++) succOffsets[preds[e] + 1]++;
+        for (int i = 0; i < n; i++) succOffsets[i + 1] += succOffsets[i];
+        int[] fill = Arrays.copyOf(succOffsets, n);
+        for (int i = 0; i < n; i++) {
+            for (int e = predOffsets[i]; e < predOffsets[i + 1]; e++) succs[fill[preds[e]]++] = i;
+        }
+    }
+
+    /** Wraps arrays a {@link ProjectSnapshot} already owns; none of them may change afterwards. */
+    static TaskGraph of(Task[] tasks, int inputSize, Map<Task, Integer> index, int[] durations, int[] predOffsets, int[] preds) {
+        return new TaskGraph(tasks, inputSize, index, durations, predOffsets, preds);
+    }
+
+    public static TaskGraph of(Collection<Task> tasks) {
+        if (tasks == null) throw new DomainException("tasks null");
+        Map<Task, Integer> index = new IdentityHashMap<>(tasks.size() * 2);
+        List<Task> all = new ArrayList<>(tasks.size());
+        for (Task t : tasks) {
+            if (t != null && !index.containsKey(t)) {
+                index.put(t, all.size());
+                all.add(t);
+            }
+        }
+        int inputSize = all.size();
+        // each dependency set is read exactly once so a concurrent addDependency cannot skew the edge count
+        List<Task[]> deps = new ArrayList<>(all.size());
+        for (int i = 0; i < all.size(); i++) {
+            Task[] ds = all.get(i).dependencyArray();
+            deps.add(ds);
+            for (Task d : ds) {
+                if (!index.containsKey(d)) {
+                    index.put(d, all.size());
+                    all.add(d);
+                }
+            }
+        }
+        return new TaskGraph(all.toArray(new Task[0]), inputSize, deps.toArray(new Task[0][]), index);
+    }
+
+    public int size() { return tasks.length; }
+
+    /**
+     * Number of tasks the graph was built from; they occupy indices {@code [0, inputSize())} and the
+     * prerequisites pulled in from outside that set follow them.
+     */
+    public int inputSize() { return inputSize; }
+
+    public int edgeCount() { return preds.length; }
+    public Task task(int i) { return tasks[i]; }
+    public int duration(int i) { return durations[i]; }
+
+    public int indexOf(Task t) {
+        Integer i = index.get(t);
+        return i == null ? -1 : i;
+    }
+
+    public int predecessorStart(int i) { return predOffsets[i]; }
+    public int predecessorEnd(int i) { return predOffsets[i + 1]; }
+    public int predecessor(int e) { return preds[e]; }
+    public int successorStart(int i) { return succOffsets[i]; }
+    public int successorEnd(int i) { return succOffsets[i + 1]; }
+    public int successor(int e) { return succs[e]; }
+
+    public int[] topologicalOrder() {
+        if (order == null) order = kahn();
+        return order.clone();
+    }
+
+    public boolean hasCycle() {
+        try {
+            if (order == null) order = kahn();
+            return false;
+        } catch (DomainException e) {
+            return true;
+        }
+    }
+
+    private int[] kahn() {
+        int n = tasks.length;
+        int[] indeg = new int[n];
+        for (int i = 0; i < n; i++) indeg[i] = predOffsets[i + 1] - predOffsets[i];
+        int[] queue = new int[n];
+        int tail = 0;
+        for (int i = 0; i < n; i++) if (indeg[i] == 0) queue[tail++] = i;
+        int head = 0;
+        while (head < tail) {
+            int u = queue[head++];
+            for (int e = succOffsets[u]; e < succOffsets[u + 1]; e++) {
+                int v = succs[e];
+                if (--indeg[v] == 0) queue[tail++] = v;
+            }
+        }
+        if (tail != n) throw new DomainException("cycle detected");
+        return queue;
+    }
+
+    public int levelCount() {
+        if (levelOffsets == null) buildLevels();
+        return levelOffsets.length - 1;
+    }
+
+    public int levelStart(int level) {
+        if (levelOffsets == null) buildLevels();
+        return levelOffsets[level];
+    }
+
+    public int levelEnd(int level) {
+        if (levelOffsets == null) buildLevels();
+        return levelOffsets[level + 1];
+    }
+
+    public int levelNode(int k) {
+        if (levelNodes == null) buildLevels();
+        return levelNodes[k];
+    }
+
+    private void buildLevels() {
+        if (order == null) order = kahn();
+        int n = tasks.length;
+        int[] level = new int[n];
+        int depth = 0;
+        for (int u : order) {
+            int l = 0;
+            for (int e = predOffsets[u]; e < predOffsets[u + 1]; e++) l = Math.max(l, level[preds[e]] + 1);
+            level[u] = l;
+            if (l + 1 > depth) depth = l + 1;
+        }
+        int[] offsets = new int[depth + 1];
+        for (int i = 0; i < n; i++) offsets[level[i] + 1]++;
+        for (int l = 0; l < depth; l++) offsets[l + 1] += offsets[l];
+        int[] fill = Arrays.copyOf(offsets, depth);
+        int[] nodes = new int[n];
+        for (int i = 0; i < n; i++) nodes[fill[level[i]]++] = i;
+        this.levelNodes = nodes;
+        this.levelOffsets = offsets;
+    }
+
+    public int earliestFinish(int[] est, int[] eft) {
+        if (order == null) order = kahn();
+        int best = 0;
+        for (int u : order) {
+            int start = 0;
+            for (int e = predOffsets[u]; e < predOffsets[u + 1]; e++) start = Math.max(start, eft[preds[e]]);
+            est[u] = start;
+            eft[u] = start + durations[u];
+            if (eft[u] > best) best = eft[u];
+        }
+        return best;
+    }
+
+    public void latestStart(int projectFinish, int[] lst, int[] lft) {
+        if (order == null) order = kahn();
+        for (int k = order.length - 1; k >= 0; k--) {
+            int u = order[k];
+            int finish = projectFinish;
+            for (int e = succOffsets[u]; e < succOffsets[u + 1]; e++) finish = Math.min(finish, lst[succs[e]]);
+            lft[u] = finish;
+            lst[u] = Math.max(0, finish - durations[u]);
+        }
+    }
+
+    public int longestPathDuration() {
+        int n = tasks.length;
+        return earliestFinish(new int[n], new int[n]);
+    }
+
+    public List<Task> tasksInOrder() {
+        if (order == null) order = kahn();
+        List<Task> res = new ArrayList<>(order.length);
+        for (int u : order) res.add(tasks[u]);
+        return res;
+    }
+}
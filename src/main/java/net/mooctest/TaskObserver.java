@@ -0,0 +1,13 @@
+package net.mooctest;
+
+interface TaskObserver {
+    void statusChanged(Task task, Task.Status from, Task.Status to);
+
+    default void scheduleChanged(Task task) {}
+
+    default void fieldsChanged(Task task) {}
+
+    default void dependencyAdded(Task task, Task dependency) {
+        scheduleChanged(task);
+    }
+}
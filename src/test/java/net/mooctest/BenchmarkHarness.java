@@ -0,0 +1,91 @@
+package net.mooctest;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Locale;
+
+final class BenchmarkHarness {
+
+	interface Operation<S> {
+		S setUp();
+
+		Object run(S state);
+	}
+
+	static final class Result {
+		final String name;
+		final int iterations;
+		final double opsPerSecond;
+		final double p50Micros;
+		final double p90Micros;
+		final double p99Micros;
+		final double maxMicros;
+		final long bytesPerOp;
+
+		Result(String name, int iterations, double opsPerSecond, double p50Micros, double p90Micros, double p99Micros,
+				double maxMicros, long bytesPerOp) {
+			this.name = name;
+			this.iterations = iterations;
+			this.opsPerSecond = opsPerSecond;
+			this.p50Micros = p50Micros;
+			this.p90Micros = p90Micros;
+			this.p99Micros = p99Micros;
+			this.maxMicros = maxMicros;
+			this.bytesPerOp = bytesPerOp;
+		}
+
+		String toRow() {
+			return String.format(Locale.ROOT, "%s\t%d\t%.2f\t%.1f\t%.1f\t%.1f\t%.1f\t%d", name, iterations, opsPerSecond, p50Micros,
+					p90Micros, p99Micros, maxMicros, bytesPerOp);
+		}
+	}
+
+	static final String HEADER = "benchmark\tops\tops/s\tp50 us\tp90 us\tp99 us\tmax us\tbytes/op";
+
+	private static final com.sun.management.ThreadMXBean ALLOCATION = allocationBean();
+	private static volatile int sink;
+
+	private BenchmarkHarness() {}
+
+	static <S> Result measure(String name, Operation<S> op, int warmup, int iterations) {
+		for (int i = 0; i < warmup; i++) consume(op.run(op.setUp()));
+		long[] nanos = new long[iterations];
+		long bytes = 0;
+		long total = 0;
+		for (int i = 0; i < iterations; i++) {
+			S state = op.setUp();
+			long allocated = allocatedBytes();
+			long start = System.nanoTime();
+			Object out = op.run(state);
+			nanos[i] = System.nanoTime() - start;
+			bytes += allocatedBytes() - allocated;
+			total += nanos[i];
+			consume(out);
+		}
+		Arrays.sort(nanos);
+		return new Result(name, iterations, iterations / (total / 1e9), percentile(nanos, 0.5) / 1e3, percentile(nanos, 0.9) / 1e3,
+				percentile(nanos, 0.99) / 1e3, nanos[iterations - 1] / 1e3, ALLOCATION == null ? -1 : bytes / iterations);
+	}
+
+	private static long percentile(long[] sorted, double q) {
+		int i = (int)Math.ceil(q * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(sorted.length - 1, i))];
+	}
+
+	// counts only the calling thread, so work forked into a pool is not included
+	private static long allocatedBytes() {
+		return ALLOCATION == null ? 0 : ALLOCATION.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static com.sun.management.ThreadMXBean allocationBean() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (!(bean instanceof com.sun.management.ThreadMXBean)) return null;
+		com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean)bean;
+		return sun.isThreadAllocatedMemorySupported() && sun.isThreadAllocatedMemoryEnabled() ? sun : null;
+	}
+
+	private static void consume(Object o) {
+		sink += System.identityHashCode(o);
+	}
+}
@@ -0,0 +1,68 @@
+package net.mooctest;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class BudgetOptimizerBenchmark {
+
+	private static final int[] ITEM_COUNTS = { 50, 200, 1000, 4000 };
+	private static final double[] LIMIT_FRACTIONS = { 0.1, 0.3 };
+	private static final long DP_CELL_LIMIT = 200_000_000L;
+	private static final int[] MULTI_ITEM_COUNTS = { 1000, 5000, 20000 };
+	private static final String[] CATEGORIES = { "LAB", "TRAVEL", "STAFF", "GENERAL" };
+
+	public static void main(String[] args) {
+		BudgetOptimizer optimizer = new BudgetOptimizer();
+		System.out.println("items\tlimit\tengine\tms\tvalue\tgap");
+		for (int n : ITEM_COUNTS) {
+			for (double fraction : LIMIT_FRACTIONS) {
+				Budget budget = randomBudget(n, 42L + n);
+				double limit = Math.floor(budget.totalCost() * fraction);
+				long start = System.nanoTime();
+				BudgetOptimizer.Selection exact = optimizer.optimizeBranchAndBound(budget, limit);
+				report(n, limit, "BNB", start, exact, exact);
+				start = System.nanoTime();
+				report(n, limit, "GREEDY", start, optimizer.optimizeGreedy(budget, limit), exact);
+				for (double eps : new double[] { 0.1, 0.01 }) {
+					start = System.nanoTime();
+					report(n, limit, "FPTAS(" + eps + ")", start, optimizer.optimizeFptas(budget, limit, eps), exact);
+				}
+				if ((long)n * (long)limit <= DP_CELL_LIMIT) {
+					start = System.nanoTime();
+					report(n, limit, "DP", start, optimizer.optimize(budget, limit), exact);
+				} else {
+					System.out.println(n + "\t" + (long)limit + "\tDP\tskipped");
+				}
+			}
+		}
+		System.out.println("items\tengine\tms\tvalue\tbound gap\tproven");
+		for (int n : MULTI_ITEM_COUNTS) {
+			Budget budget = randomBudget(n, 7L + n);
+			Map<String, Double> caps = new HashMap<>();
+			caps.put("LAB", budget.categoryCost("LAB") * 0.2);
+			caps.put("TRAVEL", budget.categoryCost("TRAVEL") * 0.1);
+			long start = System.nanoTime();
+			BudgetOptimizer.Selection s = optimizer.optimize(budget, budget.totalCost() * 0.3, budget.totalHours() * 0.25, caps);
+			System.out.printf("%d\tMULTI\t%.2f\t%.3f\t%.6f\t%s%n", n, (System.nanoTime() - start) / 1e6, s.getTotalValue(),
+					1 - s.getTotalValue() / s.getUpperBound(), s.isProvenOptimal());
+		}
+	}
+
+	private static void report(int n, double limit, String engine, long start, BudgetOptimizer.Selection s, BudgetOptimizer.Selection exact) {
+		double ms = (System.nanoTime() - start) / 1e6;
+		double gap = exact.getTotalValue() == 0 ? 0 : 1 - s.getTotalValue() / exact.getTotalValue();
+		System.out.printf("%d\t%d\t%s\t%.2f\t%.3f\t%.5f%n", n, (long)limit, engine, ms, s.getTotalValue(), gap);
+	}
+
+	static Budget randomBudget(int n, long seed) {
+		Random rnd = new Random(seed);
+		Budget budget = new Budget();
+		for (int i = 0; i < n; i++) {
+			double cost = 10 + rnd.nextInt(5000);
+			double value = cost * (0.5 + rnd.nextDouble());
+			budget.add(new Budget.Item("item" + i, cost, value, CATEGORIES[i % CATEGORIES.length], 1 + rnd.nextInt(200)));
+		}
+		return budget;
+	}
+}
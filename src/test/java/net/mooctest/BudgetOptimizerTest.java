@@ -0,0 +1,134 @@
+package net.mooctest;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class BudgetOptimizerTest {
+
+	private BudgetOptimizer optimizer;
+	private Budget budget;
+
+	@Before
+	public void setUp() {
+		optimizer = new BudgetOptimizer();
+		budget = new Budget();
+		budget.add(new Budget.Item("A", 60, 10, "LAB"));
+		budget.add(new Budget.Item("B", 100, 20, "LAB"));
+		budget.add(new Budget.Item("C", 120, 30, "TRAVEL"));
+	}
+
+	@Test
+	public void testBranchAndBoundMatchesDp() {
+		BudgetOptimizer.Selection exact = optimizer.optimizeBranchAndBound(budget, 220);
+		assertEquals(50, exact.getTotalValue(), 1e-9);
+		assertEquals(220, exact.getTotalCost(), 1e-9);
+		assertEquals(optimizer.optimize(budget, 220).getTotalValue(), exact.getTotalValue(), 1e-9);
+		assertTrue(exact.isProvenOptimal());
+		assertTrue(optimizer.optimize(budget, 220).isProvenOptimal());
+		assertFalse(optimizer.optimizeGreedy(budget, 220).isProvenOptimal());
+	}
+
+	@Test
+	public void testBranchAndBoundNodeLimitFallsBackToGreedyBound() {
+		Random rnd = new Random(3);
+		Budget b = new Budget();
+		for (int i = 0; i < 200; i++) {
+			b.add(new Budget.Item("I" + i, 100 + rnd.nextInt(20), 100 + rnd.nextInt(20), "GENERAL"));
+		}
+		BudgetOptimizer.Selection greedy = optimizer.optimizeGreedy(b, 5000);
+		BudgetOptimizer.Selection capped = optimizer.optimizeBranchAndBound(b, 5000, 1000);
+		assertFalse(capped.isProvenOptimal());
+		assertTrue(capped.getTotalValue() >= greedy.getTotalValue());
+		assertTrue(capped.getTotalCost() <= 5000);
+		assertTrue(capped.getUpperBound() >= capped.getTotalValue());
+		assertTrue(capped.getUpperBound() >= optimizer.optimize(b, 5000).getTotalValue() - 1e-9);
+	}
+
+	@Test
+	public void testGreedyKeepsBudgetOrderAndLimit() {
+		BudgetOptimizer.Selection s = optimizer.optimizeGreedy(budget, 220);
+		assertTrue(s.getTotalCost() <= 220);
+		assertEquals("B", s.getItems().get(0).getName());
+		assertEquals("C", s.getItems().get(1).getName());
+	}
+
+	@Test
+	public void testFptasWithinEpsilonOnRandomItems() {
+		Random rnd = new Random(7);
+		Budget b = new Budget();
+		for (int i = 0; i < 60; i++) {
+			b.add(new Budget.Item("I" + i, 1 + rnd.nextInt(200), rnd.nextDouble() * 50, "GENERAL"));
+		}
+		double exact = optimizer.optimizeBranchAndBound(b, 1500).getTotalValue();
+		assertEquals(exact, optimizer.optimize(b, 1500).getTotalValue(), 1e-9);
+		BudgetOptimizer.Selection approx = optimizer.optimizeFptas(b, 1500, 0.1);
+		assertTrue(approx.getTotalCost() <= 1500);
+		assertTrue(approx.getTotalValue() >= 0.9 * exact);
+		double cost = 0;
+		for (Budget.Item it : approx.getItems()) cost += it.getCost();
+		assertEquals(cost, approx.getTotalCost(), 1e-9);
+	}
+
+	@Test
+	public void testMultiConstraintRespectsHoursAndCategoryCaps() {
+		Budget b = new Budget();
+		b.add(new Budget.Item("Microscope", 60, 30, "LAB", 5));
+		b.add(new Budget.Item("Reagents", 40, 25, "LAB", 30));
+		b.add(new Budget.Item("Conference", 50, 28, "TRAVEL", 10));
+		b.add(new Budget.Item("Fieldwork", 30, 20, "TRAVEL", 40));
+		b.add(new Budget.Item("Analyst", 20, 12, "STAFF", 35));
+		Map<String, Double> caps = new HashMap<>();
+		caps.put("LAB", 70.0);
+		BudgetOptimizer.Selection s = optimizer.optimize(b, 150, 60, caps);
+		assertEquals(78, s.getTotalValue(), 1e-9);
+		assertEquals(140, s.getTotalCost(), 1e-9);
+		assertEquals(55, s.getTotalHours(), 1e-9);
+		assertTrue(s.isProvenOptimal());
+		assertEquals("Microscope", s.getItems().get(0).getName());
+	}
+
+	@Test
+	public void testMultiConstraintMatchesExhaustiveSearch() {
+		Random rnd = new Random(13);
+		String[] cats = { "LAB", "TRAVEL", "STAFF" };
+		for (int round = 0; round < 40; round++) {
+			Budget b = new Budget();
+			int n = 12;
+			for (int i = 0; i < n; i++) {
+				b.add(new Budget.Item("I" + i, 1 + rnd.nextInt(100), rnd.nextDouble() * 50, cats[rnd.nextInt(3)], rnd.nextInt(40)));
+			}
+			Map<String, Double> caps = new HashMap<>();
+			caps.put("LAB", 40.0 + rnd.nextInt(120));
+			double limit = 100 + rnd.nextInt(300);
+			double hours = 30 + rnd.nextInt(120);
+			double best = 0;
+			for (int mask = 0; mask < 1 << n; mask++) {
+				double cost = 0, h = 0, lab = 0, value = 0;
+				for (int i = 0; i < n; i++) {
+					if ((mask >>> i & 1) == 0) continue;
+					Budget.Item it = b.getItems().get(i);
+					cost += it.getCost();
+					h += it.getHours();
+					value += it.getValue();
+					if ("LAB".equals(it.getCategory())) lab += it.getCost();
+				}
+				if (cost <= limit && h <= hours && lab <= caps.get("LAB")) best = Math.max(best, value);
+			}
+			BudgetOptimizer.Selection s = optimizer.optimize(b, limit, hours, caps);
+			assertEquals(best, s.getTotalValue(), 1e-9);
+			assertTrue(s.getTotalCost() <= limit);
+			assertTrue(s.getTotalHours() <= hours);
+		}
+	}
+
+	@Test(expected = DomainException.class)
+	public void testFptasRejectsBadEpsilon() {
+		optimizer.optimizeFptas(budget, 100, 0);
+	}
+}
@@ -0,0 +1,79 @@
+package net.mooctest;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CriticalPathEngineTest {
+
+	private Task design;
+	private Task build;
+	private Task docs;
+	private Task release;
+	private CriticalPathEngine engine;
+
+	@Before
+	public void setUp() {
+		design = new Task("design", 3, Task.Priority.HIGH);
+		build = new Task("build", 5, Task.Priority.HIGH);
+		docs = new Task("docs", 2, Task.Priority.LOW);
+		release = new Task("release", 1, Task.Priority.CRITICAL);
+		build.addDependency(design);
+		docs.addDependency(design);
+		release.addDependency(build);
+		release.addDependency(docs);
+		engine = new CriticalPathEngine(Arrays.asList(design, build, docs, release));
+	}
+
+	@Test
+	public void testDurationChangeMovesFinishAndSlack() {
+		assertEquals(9, engine.getProjectFinish());
+		engine.setDuration(docs, 8);
+		assertEquals(12, engine.getProjectFinish());
+		assertEquals(3, engine.getSlack(build));
+		assertEquals(0, engine.getSlack(docs));
+		engine.apply();
+		assertEquals(11, release.getEst());
+		assertEquals(6, build.getLst());
+	}
+
+	@Test
+	public void testAddDependencyMatchesFullReschedule() {
+		Task review = new Task("review", 4, Task.Priority.MEDIUM);
+		engine.addTask(review);
+		engine.addDependency(review, build);
+		engine.addDependency(release, review);
+		assertEquals(13, engine.getProjectFinish());
+		engine.apply();
+		int est = review.getEst();
+		int lst = docs.getLst();
+		new Scheduler().schedule(Arrays.asList(design, build, docs, release, review));
+		assertEquals(review.getEst(), est);
+		assertEquals(docs.getLst(), lst);
+	}
+
+	@Test(expected = DomainException.class)
+	public void testCycleIsRejected() {
+		engine.addDependency(design, release);
+	}
+
+	@Test
+	public void testAddingLongUntrackedChainDoesNotRecurse() {
+		CriticalPathEngine empty = new CriticalPathEngine(null);
+		Task first = new Task("t0", 1, Task.Priority.LOW);
+		Task last = first;
+		for (int i = 1; i < 100_000; i++) {
+			Task t = new Task("t" + i, 1, Task.Priority.LOW);
+			t.addDependency(last);
+			last = t;
+		}
+		empty.addTask(last);
+		assertEquals(100_000, empty.getProjectFinish());
+		assertEquals(0, empty.getEst(first));
+		assertEquals(0, empty.getSlack(first));
+		assertEquals(99_999, empty.getEst(last));
+	}
+}
@@ -0,0 +1,115 @@
+package net.mooctest;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class GraphUtilsTest {
+
+	private Task design;
+	private Task build;
+	private Task docs;
+	private Task release;
+
+	@Before
+	public void setUp() {
+		design = new Task("design", 3, Task.Priority.HIGH);
+		build = new Task("build", 5, Task.Priority.HIGH);
+		docs = new Task("docs", 2, Task.Priority.LOW);
+		release = new Task("release", 1, Task.Priority.CRITICAL);
+		build.addDependency(design);
+		docs.addDependency(design);
+		release.addDependency(build);
+		release.addDependency(docs);
+	}
+
+	@Test
+	public void testTopologicalSortPlacesDependenciesFirst() {
+		List<Task> order = GraphUtils.topologicalSort(Arrays.asList(release, docs, build, design));
+		assertEquals(4, order.size());
+		assertTrue(order.indexOf(design) < order.indexOf(build));
+		assertTrue(order.indexOf(design) < order.indexOf(docs));
+		assertTrue(order.indexOf(build) < order.indexOf(release));
+		assertTrue(order.indexOf(docs) < order.indexOf(release));
+	}
+
+	@Test
+	public void testLongestPathFollowsCriticalChain() {
+		assertEquals(9, GraphUtils.longestPathDuration(Arrays.asList(design, build, docs, release)));
+		assertEquals(9, GraphUtils.longestPathDuration(Arrays.asList(release)));
+	}
+
+	@Test
+	public void testSchedulerComputesSlackOffCriticalPath() {
+		new Scheduler().schedule(Arrays.asList(design, build, docs, release));
+		assertEquals(3, build.getEst());
+		assertEquals(8, release.getEst());
+		assertEquals(0, build.slack());
+		assertEquals(3, docs.slack());
+		assertEquals(9, release.getLft());
+	}
+
+	@Test
+	public void testAddDependencyRejectsCycleImmediately() {
+		assertFalse(design.addDependency(release));
+		assertFalse(design.dependsOn(release));
+		assertFalse(GraphUtils.hasCycle(Arrays.asList(design, build, docs, release)));
+	}
+
+	@Test
+	public void testBackwardEdgeReordersAffectedTasks() {
+		Task late = new Task("late", 2, Task.Priority.LOW);
+		assertTrue(design.rank() < late.rank());
+		assertTrue(design.addDependency(late));
+		assertTrue(late.rank() < design.rank());
+		assertTrue(design.rank() < build.rank());
+		assertTrue(build.rank() < release.rank());
+		assertEquals(11, GraphUtils.longestPathDuration(Arrays.asList(release)));
+	}
+
+	@Test
+	public void testJoiningGraphsSharesOneLockScope() {
+		Task other = new Task("other", 1, Task.Priority.LOW);
+		assertNotSame(design.component(), other.component());
+		assertSame(design.component(), release.component());
+		assertTrue(other.addDependency(release));
+		assertSame(design.component(), other.component());
+	}
+
+	@Test
+	public void testConcurrentEdgesAcrossGraphsKeepEveryChainOrdered() throws Exception {
+		int chains = 8;
+		int length = 500;
+		List<List<Task>> all = new ArrayList<>();
+		for (int c = 0; c < chains; c++) {
+			List<Task> chain = new ArrayList<>();
+			for (int i = 0; i < length; i++) chain.add(new Task("c" + c + "-" + i, 1, Task.Priority.LOW));
+			all.add(chain);
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> done = new ArrayList<>();
+			for (List<Task> chain : all) {
+				// edges added back to front force rank reassignment on every insert
+				done.add(pool.submit(() -> {
+					for (int i = chain.size() - 1; i > 0; i--) assertTrue(chain.get(i - 1).addDependency(chain.get(i)));
+				}));
+			}
+			for (Future<?> f : done) f.get();
+		} finally {
+			pool.shutdown();
+		}
+		for (List<Task> chain : all) {
+			for (int i = 1; i < length; i++) assertTrue(chain.get(i).rank() < chain.get(i - 1).rank());
+			assertEquals(length, GraphUtils.longestPathDuration(chain));
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package net.mooctest;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+
+public class IdGeneratorTest {
+
+	@Test
+	public void testIdsUniqueAcrossThreadsAndIncreasingPerThread() throws Exception {
+		Set<Long> all = ConcurrentHashMap.newKeySet();
+		Thread[] threads = new Thread[8];
+		boolean[] increasing = new boolean[threads.length];
+		for (int k = 0; k < threads.length; k++) {
+			final int slot = k;
+			threads[k] = new Thread(() -> {
+				long prev = 0;
+				boolean ok = true;
+				for (int i = 0; i < 20000; i++) {
+					long id = IdGenerator.nextId();
+					ok &= id > prev && all.add(id);
+					prev = id;
+				}
+				increasing[slot] = ok;
+			});
+			threads[k].start();
+		}
+		for (Thread t : threads) t.join();
+		assertEquals(8 * 20000, all.size());
+		for (boolean ok : increasing) assertTrue(ok);
+	}
+
+	@Test
+	public void testIdCarriesCreationTime() {
+		long before = System.currentTimeMillis();
+		long id = new Task("t", 1, Task.Priority.LOW).getId();
+		assertTrue(id > 0);
+		assertTrue(IdGenerator.timestampOf(id) >= before - 60000);
+		assertTrue(IdGenerator.timestampOf(id) <= System.currentTimeMillis() + 1000);
+		Set<Long> ids = new HashSet<>();
+		for (int i = 0; i < 10000; i++) assertTrue(ids.add(IdGenerator.nextId()));
+		assertEquals(id, IdGenerator.fromString(Long.toUnsignedString(id)));
+	}
+}
@@ -0,0 +1,58 @@
+package net.mooctest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class MatchingBenchmark {
+
+	private static final int[][] SIZES = { { 300, 2000 }, { 1000, 8000 }, { 3000, 20000 } };
+	private static final int SKILLS = 24;
+
+	public static void main(String[] args) {
+		MatchingEngine engine = new MatchingEngine();
+		System.out.println("researchers\ttasks\tengine\tms\tassigned\ttotal score");
+		for (int[] size : SIZES) {
+			long seed = 7L * size[0] + size[1];
+			List<Researcher> researchers = researchers(size[0], seed);
+			List<Task> tasks = tasks(size[1], seed);
+			long start = System.nanoTime();
+			report(size, "GREEDY", start, engine.match(researchers, tasks));
+			researchers = researchers(size[0], seed);
+			tasks = tasks(size[1], seed);
+			start = System.nanoTime();
+			report(size, "OPTIMAL", start, engine.matchOptimal(researchers, tasks));
+		}
+	}
+
+	private static void report(int[] size, String name, long start, List<MatchingEngine.Assignment> res) {
+		double ms = (System.nanoTime() - start) / 1e6;
+		double total = 0;
+		for (MatchingEngine.Assignment a : res) total += a.getScore();
+		System.out.printf("%d\t%d\t%s\t%.1f\t%d\t%.3f%n", size[0], size[1], name, ms, res.size(), total);
+	}
+
+	static List<Researcher> researchers(int n, long seed) {
+		Random rnd = new Random(seed);
+		List<Researcher> res = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			Researcher r = new Researcher("R" + i, 8 + rnd.nextInt(33));
+			r.updateRating(rnd.nextInt(101));
+			for (int k = 0; k < 4; k++) r.addSkill("S" + rnd.nextInt(SKILLS), 1 + rnd.nextInt(SkillIndex.MAX_LEVEL));
+			res.add(r);
+		}
+		return res;
+	}
+
+	static List<Task> tasks(int n, long seed) {
+		Random rnd = new Random(~seed);
+		Task.Priority[] priorities = Task.Priority.values();
+		List<Task> res = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			Task t = new Task("T" + i, 1 + rnd.nextInt(40), priorities[rnd.nextInt(priorities.length)]);
+			if (rnd.nextInt(4) != 0) t.requireSkill("S" + rnd.nextInt(SKILLS), 1 + rnd.nextInt(6));
+			res.add(t);
+		}
+		return res;
+	}
+}
@@ -0,0 +1,147 @@
+package net.mooctest;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class MatchingEngineTest {
+
+	@Test
+	public void testOptimalBeatsGreedyWhenFirstPickBlocksLaterTask() {
+		MatchingEngine engine = new MatchingEngine();
+		Task small = new Task("small", 10, Task.Priority.LOW);
+		Task large = new Task("large", 40, Task.Priority.HIGH);
+		List<MatchingEngine.Assignment> greedy = engine.match(
+				Arrays.asList(new Researcher("a", 40), new Researcher("b", 10)), new ArrayList<>(Arrays.asList(small, large)));
+		assertEquals(1, greedy.size());
+
+		Researcher a = new Researcher("a", 40);
+		Researcher b = new Researcher("b", 10);
+		Task small2 = new Task("small", 10, Task.Priority.LOW);
+		Task large2 = new Task("large", 40, Task.Priority.HIGH);
+		List<MatchingEngine.Assignment> optimal = engine.matchOptimal(Arrays.asList(a, b), Arrays.asList(small2, large2));
+		assertEquals(2, optimal.size());
+		assertEquals(5.0, total(optimal), 1e-9);
+		assertSame(b, optimal.get(0).getResearcher());
+		assertEquals(Long.valueOf(a.getId()), large2.getAssignedResearcherId());
+		assertEquals(0, a.getCapacity());
+	}
+
+	@Test
+	public void testRequiredSkillsRestrictCandidates() {
+		Researcher novice = new Researcher("novice", 40);
+		novice.addSkill("java", 2);
+		Researcher expert = new Researcher("expert", 10);
+		expert.addSkill("java", 7);
+		expert.addSkill("sql", 3);
+		Task query = new Task("query", 8, Task.Priority.HIGH);
+		query.requireSkill("java", 5);
+		query.requireSkill("sql", 1);
+		Task unknown = new Task("unknown", 1, Task.Priority.LOW);
+		unknown.requireSkill("rust", 1);
+		SkillIndex index = SkillIndex.of(Arrays.asList(novice, expert));
+		assertArrayEquals(new int[] { 1 }, index.candidateIndices(query));
+		assertEquals(0, index.candidateIndices(unknown).length);
+
+		List<MatchingEngine.Assignment> greedy = new MatchingEngine().match(Arrays.asList(novice, expert), new ArrayList<>(Arrays.asList(query, unknown)));
+		assertEquals(1, greedy.size());
+		assertSame(expert, greedy.get(0).getResearcher());
+		Task other = new Task("query", 8, Task.Priority.HIGH);
+		other.requireSkill("java", 5);
+		List<MatchingEngine.Assignment> optimal = new MatchingEngine().matchOptimal(Arrays.asList(novice, expert), Arrays.asList(other));
+		assertEquals(0, optimal.size());
+	}
+
+	@Test
+	public void testOptimalMatchesExhaustiveSearch() {
+		MatchingEngine engine = new MatchingEngine();
+		Random rnd = new Random(5);
+		for (int round = 0; round < 50; round++) {
+			List<Researcher> researchers = new ArrayList<>();
+			for (int i = 0, n = 1 + rnd.nextInt(5); i < n; i++) {
+				Researcher r = new Researcher("r" + i, rnd.nextInt(41));
+				r.updateRating(rnd.nextInt(101));
+				researchers.add(r);
+			}
+			List<Task> tasks = new ArrayList<>();
+			for (int j = 0, n = 1 + rnd.nextInt(6); j < n; j++) tasks.add(new Task("t" + j, rnd.nextInt(41), Task.Priority.MEDIUM));
+			double[][] score = new double[researchers.size()][tasks.size()];
+			for (int i = 0; i < score.length; i++) {
+				for (int j = 0; j < tasks.size(); j++) {
+					Researcher r = researchers.get(i);
+					score[i][j] = r.canAssign(tasks.get(j)) ? engine.score(r, tasks.get(j)) : 0;
+				}
+			}
+			List<MatchingEngine.Assignment> res = engine.matchOptimal(researchers, tasks);
+			assertEquals(best(score, 0, new boolean[tasks.size()]), total(res), 1e-6);
+			Set<Researcher> used = new HashSet<>();
+			for (MatchingEngine.Assignment a : res) assertTrue(used.add(a.getResearcher()));
+		}
+	}
+
+	@Test
+	public void testOptimalGrowsCandidateListsWhenTopChoicesRunOut() {
+		List<Researcher> researchers = new ArrayList<>();
+		for (int i = 0; i < 40; i++) researchers.add(new Researcher("r" + i, 40));
+		List<Task> tasks = new ArrayList<>();
+		for (int j = 0; j <= AssignmentSolver.INITIAL_CANDIDATES; j++) tasks.add(new Task("top" + j, 40, Task.Priority.HIGH));
+		for (int d = 1; d < 40; d++) tasks.add(new Task("d" + d, d, Task.Priority.LOW));
+		List<MatchingEngine.Assignment> res = new MatchingEngine().matchOptimal(researchers, tasks);
+		assertEquals(40, res.size());
+		// every researcher's first list holds only "top" tasks, so the seven left over must see further down
+		int top = AssignmentSolver.INITIAL_CANDIDATES + 1;
+		double expected = top * 4.0;
+		for (int k = 0; k < 40 - top; k++) expected += (39 - k) * 0.1;
+		assertEquals(expected, total(res), 1e-6);
+	}
+
+	@Test
+	public void testCustomScoreFunctionDrivesBothMatchers() {
+		// prefers the lowest-rated researcher, the opposite of the built-in score
+		MatchingEngine engine = new MatchingEngine((r, t) -> 100 - r.getRating());
+		Researcher junior = new Researcher("junior", 40);
+		junior.updateRating(10);
+		junior.addSkill("java", 6);
+		Researcher senior = new Researcher("senior", 40);
+		senior.updateRating(90);
+		senior.addSkill("java", 6);
+		Researcher outsider = new Researcher("outsider", 40);
+		Task task = new Task("t", 5, Task.Priority.HIGH);
+		task.requireSkill("java", 5);
+		List<MatchingEngine.Assignment> greedy = engine.match(Arrays.asList(senior, outsider, junior), new ArrayList<>(Arrays.asList(task)));
+		assertEquals(1, greedy.size());
+		assertSame(junior, greedy.get(0).getResearcher());
+		assertEquals(100 - junior.getRating(), greedy.get(0).getScore(), 0);
+
+		Task other = new Task("t", 5, Task.Priority.HIGH);
+		other.requireSkill("java", 5);
+		List<MatchingEngine.Assignment> optimal = engine.matchOptimal(Arrays.asList(senior, outsider, junior), Arrays.asList(other));
+		assertEquals(1, optimal.size());
+		assertSame(junior, optimal.get(0).getResearcher());
+	}
+
+	private static double best(double[][] score, int i, boolean[] taken) {
+		if (i == score.length) return 0;
+		double best = best(score, i + 1, taken);
+		for (int j = 0; j < taken.length; j++) {
+			if (taken[j] || score[i][j] <= 0) continue;
+			taken[j] = true;
+			best = Math.max(best, score[i][j] + best(score, i + 1, taken));
+			taken[j] = false;
+		}
+		return best;
+	}
+
+	private static double total(List<MatchingEngine.Assignment> res) {
+		double sum = 0;
+		for (MatchingEngine.Assignment a : res) sum += a.getScore();
+		return sum;
+	}
+}
@@ -0,0 +1,60 @@
+package net.mooctest;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class MetricsTest {
+
+	@Test
+	public void testEnginesReportIntoRegistry() {
+		MetricsRegistry registry = Metrics.enable();
+		try {
+			Task a = new Task("A", 2, Task.Priority.HIGH);
+			Task b = new Task("B", 3, Task.Priority.LOW);
+			b.addDependency(a);
+			new Scheduler().schedule(Arrays.asList(a, b));
+			List<Researcher> people = new ArrayList<>();
+			people.add(new Researcher("Ada", 10));
+			new MatchingEngine().match(people, new ArrayList<>(Arrays.asList(a, b)));
+			Budget budget = new Budget();
+			budget.add(new Budget.Item("Kit", 10, 5, "LAB"));
+			new BudgetOptimizer().optimize(budget, 20);
+			new RiskAnalyzer().simulate(Arrays.asList(new Risk("Outage", "INFRA", 0.5, 0.5)), 1000);
+
+			assertEquals(1, registry.getTimer("scheduler.schedule").getCount());
+			assertEquals(1, registry.getTimer("scheduler.compile").getCount());
+			assertEquals(2, registry.getCounter("scheduler.tasks"));
+			assertEquals(1, registry.getTimer("matching.match").getCount());
+			assertEquals(1, registry.getCounter("matching.assignments"));
+			assertEquals(1, registry.getTimer("budget.optimize.dp").getCount());
+			assertEquals(1000, registry.getCounter("risk.iterations"));
+			MetricsRegistry.TimerStats risk = registry.getTimer("risk.simulate");
+			assertTrue(risk.getTotalNanos() > 0);
+			assertTrue(risk.getMaxNanos() <= risk.getTotalNanos());
+		} finally {
+			Metrics.disable();
+		}
+	}
+
+	@Test
+	public void testDisabledTimerIsSharedNoop() {
+		Metrics.disable();
+		assertFalse(Metrics.isEnabled());
+		assertSame(Metrics.start("a"), Metrics.start("b"));
+		Metrics.count("ignored", 1);
+		MetricsRegistry registry = new MetricsRegistry();
+		Metrics.setSink(registry);
+		try {
+			Metrics.start("report.generate").close();
+			assertEquals(1, registry.getTimer("report.generate").getCount());
+			assertEquals(0, registry.getCounter("ignored"));
+		} finally {
+			Metrics.disable();
+		}
+	}
+}
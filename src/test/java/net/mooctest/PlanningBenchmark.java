@@ -0,0 +1,88 @@
+package net.mooctest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class PlanningBenchmark {
+
+	private static final int[][] DAG_SHAPES = { { 100, 10 }, { 1000, 50 }, { 1000, 500 } };
+	private static final int[][] MATCH_SIZES = { { 50, 200 }, { 300, 2000 } };
+	private static final int[] ITEM_COUNTS = { 100, 1000 };
+	private static final int[] RISK_COUNTS = { 10, 200 };
+	private static final double REGRESSION_TOLERANCE = 0.10;
+
+	public static void main(String[] args) throws IOException {
+		Map<String, Double> baseline = args.length > 0 ? readBaseline(args[0]) : new HashMap<String, Double>();
+		System.out.println(BenchmarkHarness.HEADER + (baseline.isEmpty() ? "" : "\tvs baseline"));
+		for (int[] shape : DAG_SHAPES) {
+			int width = shape[0];
+			int depth = shape[1];
+			List<Task> tasks = SyntheticData.dag(width, depth, 3, 31L * width + depth);
+			String size = width + "x" + depth;
+			int rounds = Math.max(5, 2_000_000 / (width * depth));
+			report(baseline, BenchmarkHarness.measure("topologicalSort/" + size, new BenchmarkHarness.Operation<List<Task>>() {
+				public List<Task> setUp() { return tasks; }
+				public Object run(List<Task> s) { return GraphUtils.topologicalSort(s); }
+			}, rounds, rounds));
+			report(baseline, BenchmarkHarness.measure("schedule/" + size, new BenchmarkHarness.Operation<List<Task>>() {
+				public List<Task> setUp() { return tasks; }
+				public Object run(List<Task> s) {
+					new Scheduler().schedule(s);
+					return s;
+				}
+			}, rounds, rounds));
+		}
+		for (int[] size : MATCH_SIZES) {
+			long seed = 7L * size[0] + size[1];
+			report(baseline, BenchmarkHarness.measure("match/" + size[0] + "x" + size[1], new BenchmarkHarness.Operation<Object[]>() {
+				public Object[] setUp() {
+					return new Object[] { SyntheticData.researchers(size[0], 24, seed), SyntheticData.skilledTasks(size[1], 24, ~seed) };
+				}
+
+				@SuppressWarnings("unchecked")
+				public Object run(Object[] s) { return new MatchingEngine().match((List<Researcher>)s[0], (List<Task>)s[1]); }
+			}, 10, 20));
+		}
+		for (int n : ITEM_COUNTS) {
+			Budget budget = SyntheticData.budget(n, 11L * n);
+			double limit = Math.floor(budget.totalCost() * 0.3);
+			report(baseline, BenchmarkHarness.measure("optimize/" + n, new BenchmarkHarness.Operation<Budget>() {
+				public Budget setUp() { return budget; }
+				public Object run(Budget b) { return new BudgetOptimizer().optimize(b, limit); }
+			}, 5, 20));
+		}
+		for (int n : RISK_COUNTS) {
+			List<Risk> risks = SyntheticData.risks(n, 13L * n);
+			report(baseline, BenchmarkHarness.measure("simulate/" + n, new BenchmarkHarness.Operation<List<Risk>>() {
+				public List<Risk> setUp() { return risks; }
+				public Object run(List<Risk> r) { return new RiskAnalyzer().simulate(r, 10_000); }
+			}, 10, 30));
+		}
+	}
+
+	private static void report(Map<String, Double> baseline, BenchmarkHarness.Result r) {
+		Double before = baseline.get(r.name);
+		if (before == null) {
+			System.out.println(r.toRow());
+			return;
+		}
+		double change = r.p50Micros / before - 1;
+		System.out.printf("%s\t%+.1f%%%s%n", r.toRow(), change * 100, change > REGRESSION_TOLERANCE ? " REGRESSED" : "");
+	}
+
+	// reads p50 latencies back from a previous run's output
+	private static Map<String, Double> readBaseline(String file) throws IOException {
+		Map<String, Double> res = new HashMap<>();
+		for (String line : Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8)) {
+			String[] cols = line.split("\t");
+			if (cols.length < 4 || cols[0].equals("benchmark")) continue;
+			res.put(cols[0], Double.parseDouble(cols[3]));
+		}
+		return res;
+	}
+}
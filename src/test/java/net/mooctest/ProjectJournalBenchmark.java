@@ -0,0 +1,48 @@
+package net.mooctest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class ProjectJournalBenchmark {
+
+	private static final int TASKS = 1_000_000;
+	private static final int JOURNAL_TAIL = 100_000;
+
+	public static void main(String[] args) throws IOException {
+		Path dir = Files.createTempDirectory("journal-bench");
+		write(dir);
+		reopen(dir);
+	}
+
+	private static void write(Path dir) {
+		Random rnd = new Random(3);
+		Project project = new Project("bench");
+		List<Task> tasks = new ArrayList<>(TASKS);
+		for (int i = 0; i < TASKS; i++) {
+			Task t = project.addTask(new Task("T" + i, 1 + rnd.nextInt(9), Task.Priority.MEDIUM));
+			if (i > 0) t.addDependency(tasks.get(rnd.nextInt(i)));
+			tasks.add(t);
+		}
+		ProjectJournal journal = ProjectJournal.create(dir, project);
+		long start = System.nanoTime();
+		for (int i = 0; i < JOURNAL_TAIL; i++) tasks.get(rnd.nextInt(TASKS)).start();
+		journal.flush();
+		System.out.printf("journal %d status records: %.1f ms%n", JOURNAL_TAIL, (System.nanoTime() - start) / 1e6);
+		journal.close();
+	}
+
+	private static void reopen(Path dir) {
+		long start = System.nanoTime();
+		ProjectJournal journal = ProjectJournal.open(dir);
+		System.out.printf("open %d tasks + %d records: %.1f ms%n", journal.getProject().getTasks().size(),
+				journal.getRecordCount(), (System.nanoTime() - start) / 1e6);
+		start = System.nanoTime();
+		journal.checkpoint();
+		System.out.printf("checkpoint: %.1f ms%n", (System.nanoTime() - start) / 1e6);
+		journal.close();
+	}
+}
@@ -0,0 +1,191 @@
+package net.mooctest;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProjectJournalTest {
+
+	private Path dir;
+
+	@Before
+	public void setUp() throws IOException {
+		dir = Files.createTempDirectory("journal");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.walk(dir)) {
+			files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+		}
+	}
+
+	@Test
+	public void testReplayRestoresStateAcrossCheckpoint() {
+		Project p = new Project("lab");
+		Task design = p.addTask(new Task("design", 3, Task.Priority.HIGH));
+		ProjectJournal journal = ProjectJournal.create(dir, p);
+		Task build = p.addTask(new Task("build", 5, Task.Priority.CRITICAL));
+		build.requireSkill("java", 4);
+		build.addDependency(design);
+		design.start();
+		design.complete();
+		p.getBudget().add(new Budget.Item("gpu", 900, 4, "HARDWARE"));
+		journal.checkpoint();
+		p.addRisk(new Risk("late", "SCHEDULE", 0.3, 0.5));
+		build.start();
+		journal.close();
+
+		ProjectJournal reopened = ProjectJournal.open(dir);
+		Project q = reopened.getProject();
+		assertEquals(p.getId(), q.getId());
+		assertEquals(2, reopened.getGeneration());
+		Task b = q.getTask(build.getId());
+		assertEquals("build", b.getName());
+		assertEquals(Task.Status.IN_PROGRESS, b.getStatus());
+		assertTrue(b.dependsOn(q.getTask(design.getId())));
+		assertEquals(8, q.criticalPathDuration());
+		assertEquals(1, q.statusCount(Task.Status.DONE));
+		assertEquals(900, q.getBudget().categoryCost("HARDWARE"), 1e-9);
+		assertEquals(1, q.getRisks().size());
+		reopened.close();
+	}
+
+	@Test
+	public void testEdgeSurvivesWhenPrerequisiteJoinsLater() {
+		Project p = new Project("lab");
+		ProjectJournal journal = ProjectJournal.create(dir, p);
+		Task design = new Task("design", 3, Task.Priority.HIGH);
+		Task build = new Task("build", 5, Task.Priority.HIGH);
+		Task docs = new Task("docs", 4, Task.Priority.LOW);
+		build.addDependency(design);
+		docs.addDependency(design);
+		p.addTask(build);
+		p.addTask(docs);
+		journal.checkpoint();
+		p.addTask(design);
+		journal.close();
+		assertEquals(8, p.criticalPathDuration());
+
+		ProjectJournal reopened = ProjectJournal.open(dir);
+		Project q = reopened.getProject();
+		assertTrue(q.getTask(build.getId()).dependsOn(q.getTask(design.getId())));
+		assertTrue(q.getTask(docs.getId()).dependsOn(q.getTask(design.getId())));
+		assertEquals(8, q.criticalPathDuration());
+		reopened.close();
+	}
+
+	@Test
+	public void testTaskFieldEditsAfterCheckpointAreReplayed() {
+		Project p = new Project("lab");
+		Task t = p.addTask(new Task("draft", 3, Task.Priority.LOW));
+		ProjectJournal journal = ProjectJournal.create(dir, p);
+		journal.checkpoint();
+		t.setDuration(10);
+		t.setName("final");
+		t.setPriority(Task.Priority.CRITICAL);
+		t.requireSkill("ml", 7);
+		journal.close();
+
+		ProjectJournal reopened = ProjectJournal.open(dir);
+		Task r = reopened.getProject().getTask(t.getId());
+		assertEquals(10, r.getDuration());
+		assertEquals("final", r.getName());
+		assertEquals(Task.Priority.CRITICAL, r.getPriority());
+		assertEquals(Integer.valueOf(7), r.getRequiredSkills().get("ml"));
+		reopened.close();
+	}
+
+	@Test
+	public void testTornTailRecordIsDropped() throws IOException {
+		Project p = new Project("lab");
+		ProjectJournal journal = ProjectJournal.create(dir, p);
+		Task a = p.addTask(new Task("a", 1, Task.Priority.LOW));
+		p.addTask(new Task("b", 2, Task.Priority.LOW));
+		journal.close();
+		Path log = dir.resolve("journal-00000001.bin");
+		try (RandomAccessFile f = new RandomAccessFile(log.toFile(), "rw")) {
+			f.setLength(f.length() - 3);
+		}
+
+		ProjectJournal reopened = ProjectJournal.open(dir);
+		assertEquals(1, reopened.getProject().getTasks().size());
+		assertNotNull(reopened.getProject().getTask(a.getId()));
+		reopened.getProject().addTask(new Task("c", 3, Task.Priority.LOW));
+		reopened.close();
+		assertEquals(2, ProjectJournal.open(dir).getProject().getTasks().size());
+	}
+
+	@Test
+	public void testRacingTransitionsReplayToLiveState() throws InterruptedException {
+		Project p = new Project("lab");
+		List<Task> tasks = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) tasks.add(p.addTask(new Task("t" + i, 1, Task.Priority.LOW)));
+		ProjectJournal journal = ProjectJournal.create(dir, p);
+		Thread starter = new Thread(() -> {
+			for (Task t : tasks) t.start();
+			for (int i = 0; i < 2000; i++) p.getBudget().setReserveRatio(0.1);
+		});
+		Thread finisher = new Thread(() -> {
+			for (Task t : tasks) t.complete();
+			for (int i = 0; i < 2000; i++) p.getBudget().setReserveRatio(0.3);
+		});
+		starter.start();
+		finisher.start();
+		starter.join();
+		finisher.join();
+		journal.close();
+
+		ProjectJournal reopened = ProjectJournal.open(dir);
+		Project q = reopened.getProject();
+		for (Task t : tasks) assertEquals(t.getStatus(), q.getTask(t.getId()).getStatus());
+		assertEquals(p.getBudget().reserveRatio(), q.getBudget().reserveRatio(), 0);
+		assertEquals(p.statusCounts(), q.statusCounts());
+		reopened.close();
+	}
+
+	@Test
+	public void testMutationsDuringCheckpointAreNotLost() throws InterruptedException {
+		Project p = new Project("lab");
+		ProjectJournal journal = ProjectJournal.create(dir, p);
+		List<Throwable> failures = new ArrayList<>();
+		Thread writer = new Thread(() -> {
+			try {
+				Task prev = null;
+				for (int i = 0; i < 5000; i++) {
+					Task t = p.addTask(new Task("t" + i, 1 + i % 5, Task.Priority.LOW));
+					if (prev != null) t.addDependency(prev);
+					t.setDuration(2 + i % 5);
+					prev = t;
+				}
+			} catch (Throwable e) {
+				failures.add(e);
+			}
+		});
+		writer.start();
+		while (writer.isAlive()) {
+			journal.checkpoint();
+			journal.flush();
+		}
+		writer.join();
+		journal.close();
+		assertTrue(failures.isEmpty());
+
+		ProjectJournal reopened = ProjectJournal.open(dir);
+		Project q = reopened.getProject();
+		assertEquals(p.getTasks().size(), q.getTasks().size());
+		assertEquals(p.criticalPathDuration(), q.criticalPathDuration());
+		reopened.close();
+	}
+}
@@ -0,0 +1,238 @@
+package net.mooctest;
+
+import static org.junit.Assert.*;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class ProjectTest {
+
+	@Test
+	public void testStatusCountsFollowTransitions() {
+		Project p = new Project("lab");
+		Task a = p.addTask(new Task("a", 1, Task.Priority.LOW));
+		Task b = p.addTask(new Task("b", 2, Task.Priority.HIGH));
+		p.addTask(a);
+		assertEquals(2, p.statusCount(Task.Status.PLANNED));
+		a.start();
+		b.start();
+		b.complete();
+		a.cancel();
+		a.cancel();
+		assertEquals(0, p.statusCount(Task.Status.PLANNED));
+		assertEquals(0, p.statusCount(Task.Status.IN_PROGRESS));
+		assertEquals(Long.valueOf(1), p.statusCounts().get(Task.Status.DONE));
+		assertEquals(Long.valueOf(1), p.statusCounts().get(Task.Status.CANCELLED));
+	}
+
+	@Test
+	public void testBudgetRollupsUpdateOnAdd() {
+		Budget budget = new Budget();
+		budget.add(new Budget.Item("laptop", 1000, 3, "ELECTRONICS"));
+		budget.add(new Budget.Item("desk", 500, 1, "FURNITURE"));
+		budget.add(new Budget.Item("monitor", 300, 2, "ELECTRONICS"));
+		assertEquals(1800, budget.totalCost(), 1e-9);
+		assertEquals(6, budget.totalValue(), 1e-9);
+		assertEquals(1300, budget.categoryCost("ELECTRONICS"), 1e-9);
+		assertEquals(5, budget.categoryValue("ELECTRONICS"), 1e-9);
+		assertEquals(2, budget.categoryCount("ELECTRONICS"));
+		assertEquals(0, budget.categoryCost("TRAVEL"), 1e-9);
+		assertEquals(Double.valueOf(500), budget.costByCategory().get("FURNITURE"));
+	}
+
+	@Test
+	public void testReportSectionsRefreshAfterScheduleChange() {
+		Project p = new Project("lab");
+		Task design = p.addTask(new Task("design", 3, Task.Priority.HIGH));
+		Task build = p.addTask(new Task("build", 4, Task.Priority.HIGH));
+		build.addDependency(design);
+		p.addRisk(new Risk("r", "TECH", 0.5, 0.4));
+		ReportGenerator gen = new ReportGenerator(0.05, 0.1, 100_000);
+		String first = gen.generate(p);
+		assertTrue(first.contains("CriticalPath:7\n"));
+		StringWriter out = new StringWriter();
+		gen.generate(p, out);
+		assertEquals(first, out.toString());
+
+		design.setDuration(5);
+		assertTrue(gen.generate(p).contains("CriticalPath:9\n"));
+		Task docs = p.addTask(new Task("docs", 20, Task.Priority.LOW));
+		docs.addDependency(build);
+		List<String> batch = gen.generateAll(Arrays.asList(p, new Project("empty")));
+		assertTrue(batch.get(0).contains("CriticalPath:29\n"));
+		assertTrue(batch.get(1).startsWith("Project:empty\n"));
+	}
+
+	@Test
+	public void testDefaultReportKeepsRiskSimulationBounded() {
+		Project p = new Project("lab");
+		for (int i = 0; i < 20; i++) p.addRisk(new Risk("r" + i, "TECH", 0.5, 0.1 * i));
+		long iterations = field(new ReportGenerator().generate(p), "RiskIterations:");
+		assertTrue(iterations > RiskAnalyzer.CHUNK_SIZE);
+		assertTrue(iterations <= ReportGenerator.DEFAULT_MAX_ITERATIONS);
+	}
+
+	@Test
+	public void testDefaultReportStopsOnceWidthsAreMet() {
+		Project p = new Project("lab");
+		for (int i = 0; i < 20; i++) p.addRisk(new Risk("r" + i, "TECH", 0.5, 0.01));
+		long iterations = field(new ReportGenerator().generate(p), "RiskIterations:");
+		assertTrue(iterations < ReportGenerator.DEFAULT_MAX_ITERATIONS);
+		RiskAnalyzer.SimulationResult r = p.analyzeRisk(ReportGenerator.DEFAULT_MEAN_WIDTH,
+				ReportGenerator.DEFAULT_P90_WIDTH, ReportGenerator.DEFAULT_MAX_ITERATIONS);
+		assertTrue(r.isConverged());
+		assertEquals(iterations, r.getIterations());
+	}
+
+	@Test
+	public void testConcurrentStartWinsExactlyOnce() throws Exception {
+		Project p = new Project("race");
+		Task t = p.addTask(new Task("t", 1, Task.Priority.LOW));
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		AtomicInteger wins = new AtomicInteger();
+		CountDownLatch go = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			futures.add(pool.submit(() -> {
+				go.await();
+				if (t.transition(Task.Status.PLANNED, Task.Status.IN_PROGRESS)) wins.incrementAndGet();
+				return null;
+			}));
+		}
+		go.countDown();
+		for (Future<?> f : futures) f.get();
+		pool.shutdown();
+		assertEquals(1, wins.get());
+		assertEquals(1, p.statusCount(Task.Status.IN_PROGRESS));
+		assertEquals(0, p.statusCount(Task.Status.PLANNED));
+	}
+
+	@Test
+	public void testSnapshotsStayConsistentWhileWritersRun() throws Exception {
+		Project p = new Project("live");
+		Task root = p.addTask(new Task("root", 2, Task.Priority.HIGH));
+		ExecutorService pool = Executors.newFixedThreadPool(3);
+		CountDownLatch done = new CountDownLatch(2);
+		for (int w = 0; w < 2; w++) {
+			pool.submit(() -> {
+				for (int i = 0; i < 500; i++) {
+					Task t = new Task("t" + i, 1 + i % 5, Task.Priority.MEDIUM);
+					t.addDependency(root);
+					p.addTask(t);
+					if (i % 3 == 0) t.complete();
+				}
+				done.countDown();
+			});
+		}
+		int snapshots = 0;
+		while (done.getCount() > 0 || snapshots == 0) {
+			ProjectSnapshot s = p.snapshot();
+			long total = 0;
+			for (Task.Status st : Task.Status.values()) total += s.statusCount(st);
+			assertEquals(s.size(), total);
+			for (Task t : s.getTasks()) {
+				if (t != root) assertEquals(Arrays.asList(root), s.getDependencies(t));
+			}
+			assertTrue(s.criticalPathDuration() <= 7);
+			snapshots++;
+		}
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+		ProjectSnapshot last = p.snapshot();
+		assertEquals(1001, last.size());
+		assertEquals(334, last.statusCount(Task.Status.DONE));
+		assertEquals(p.statusCount(Task.Status.DONE), last.statusCount(Task.Status.DONE));
+		assertEquals(7, last.criticalPathDuration());
+	}
+
+	@Test
+	public void testTasksAndResearchersKeepInsertionOrder() {
+		Project p = new Project("lab");
+		Task late = new Task(900, "late", 1, Task.Priority.LOW);
+		Task early = new Task(100, "early", 1, Task.Priority.LOW);
+		Task middle = new Task(500, "middle", 1, Task.Priority.LOW);
+		p.addTask(late);
+		p.addTask(early);
+		p.addTask(middle);
+		Task replacement = new Task(100, "early v2", 2, Task.Priority.HIGH);
+		p.addTask(replacement);
+		assertEquals(Arrays.asList(late, replacement, middle), new ArrayList<>(p.getTasks()));
+		assertSame(replacement, p.getTask(100));
+		assertEquals(3, p.statusCount(Task.Status.PLANNED));
+
+		Researcher b = p.addResearcher(new Researcher(20, "b", 40));
+		Researcher a = p.addResearcher(new Researcher(10, "a", 40));
+		assertEquals(Arrays.asList(b, a), new ArrayList<>(p.getResearchers()));
+		assertEquals(Arrays.asList(late, replacement, middle), p.snapshot().getTasks());
+	}
+
+	@Test
+	public void testSnapshotGraphIgnoresLaterEdits() {
+		Project p = new Project("lab");
+		Task design = p.addTask(new Task("design", 3, Task.Priority.HIGH));
+		Task build = p.addTask(new Task("build", 5, Task.Priority.HIGH));
+		build.addDependency(design);
+		ProjectSnapshot snap = p.snapshot();
+		build.setDuration(10);
+		p.addTask(new Task("docs", 20, Task.Priority.LOW));
+
+		TaskGraph g = snap.graph();
+		assertSame(g, snap.graph());
+		assertEquals(2, g.size());
+		assertEquals(5, g.duration(g.indexOf(build)));
+		assertEquals(8, new Scheduler().schedule(snap));
+		assertEquals(3, build.getEst());
+		assertEquals(8, build.getEft());
+		assertEquals(20, p.criticalPathDuration());
+	}
+
+	@Test
+	public void testCriticalPathFollowsPrerequisitesOutsideProject() {
+		Project p = new Project("lab");
+		Task external = new Task("vendor", 4, Task.Priority.LOW);
+		Task upstream = new Task("upstream", 2, Task.Priority.LOW);
+		external.addDependency(upstream);
+		Task build = p.addTask(new Task("build", 5, Task.Priority.HIGH));
+		build.addDependency(external);
+
+		ProjectSnapshot snap = p.snapshot();
+		assertEquals(1, snap.size());
+		assertEquals(Arrays.asList(build), snap.getTasks());
+		assertEquals(3, snap.graph().size());
+		assertEquals(11, snap.criticalPathDuration());
+		assertEquals(GraphUtils.longestPathDuration(p.getTasks()), p.criticalPathDuration());
+		assertEquals(1, snap.statusCount(Task.Status.PLANNED));
+	}
+
+	@Test
+	public void testReportRendersOneSnapshotWhileWritersRun() throws InterruptedException {
+		Project p = new Project("lab");
+		Thread writer = new Thread(() -> {
+			for (int i = 1; i <= 3000; i++) p.addTask(new Task("t" + i, i, Task.Priority.LOW));
+		});
+		ReportGenerator gen = new ReportGenerator(0.05, 0.1, 1000);
+		writer.start();
+		while (writer.isAlive()) {
+			String report = gen.generate(p);
+			long tasks = 0;
+			for (Task.Status st : Task.Status.values()) tasks += field(report, "Status " + st.name() + ":");
+			assertEquals(tasks, field(report, "CriticalPath:"));
+		}
+		writer.join();
+	}
+
+	private static long field(String report, String key) {
+		int at = report.indexOf(key) + key.length();
+		return Long.parseLong(report.substring(at, report.indexOf('\n', at)));
+	}
+}
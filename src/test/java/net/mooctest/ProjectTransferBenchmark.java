@@ -0,0 +1,52 @@
+package net.mooctest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class ProjectTransferBenchmark {
+
+	private static final int TASKS = 1_000_000;
+
+	public static void main(String[] args) throws IOException {
+		Path export = Files.createTempFile("transfer-bench", ".bin");
+		exportProject(build(), export);
+		importExport(export);
+		Files.delete(export);
+	}
+
+	private static Project build() {
+		Random rnd = new Random(3);
+		Project project = new Project("bench");
+		List<Task> tasks = new ArrayList<>(TASKS);
+		for (int i = 0; i < TASKS; i++) {
+			Task t = project.addTask(new Task("T" + i, 1 + rnd.nextInt(9), Task.Priority.MEDIUM));
+			if (i > 0) t.addDependency(tasks.get(rnd.nextInt(i)));
+			tasks.add(t);
+		}
+		return project;
+	}
+
+	private static void exportProject(Project project, Path export) throws IOException {
+		long start = System.nanoTime();
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(export))) {
+			ProjectTransfer.exportTo(project, out);
+		}
+		System.out.printf("columnar export: %.1f ms, %d bytes%n", (System.nanoTime() - start) / 1e6, Files.size(export));
+	}
+
+	private static void importExport(Path export) throws IOException {
+		long start = System.nanoTime();
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(export))) {
+			Project imported = ProjectTransfer.importFrom(in);
+			System.out.printf("columnar import %d tasks: %.1f ms%n", imported.getTasks().size(), (System.nanoTime() - start) / 1e6);
+		}
+	}
+}
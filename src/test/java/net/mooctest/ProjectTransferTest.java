@@ -0,0 +1,96 @@
+package net.mooctest;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+public class ProjectTransferTest {
+
+	@Test
+	public void testColumnarExportRoundTrip() {
+		Project p = new Project("portfolio");
+		Task prev = null;
+		for (int i = 0; i < ProjectTransfer.BLOCK + 10; i++) {
+			Task t = p.addTask(new Task("t" + i, i % 7, Task.Priority.values()[i % 4]));
+			if (prev != null) t.addDependency(prev);
+			prev = t;
+		}
+		prev.requireSkill("ml", 6);
+		prev.complete();
+		prev.updateProgress(0.75);
+		Researcher r = p.addResearcher(new Researcher("ana", 30));
+		r.addSkill("ml", 8);
+		r.updateRating(90);
+		prev.assignTo(r.getId());
+		r.assignTask(prev);
+		p.addRisk(new Risk("drift", "DATA", 0.2, 0.9));
+		p.getBudget().add(new Budget.Item("cluster", 5000, 9, "HARDWARE"));
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ProjectTransfer.exportTo(p, bytes);
+		Project q = ProjectTransfer.importFrom(new ByteArrayInputStream(bytes.toByteArray()));
+		assertEquals(p.getId(), q.getId());
+		assertEquals(p.getTasks().size(), q.getTasks().size());
+		assertEquals(p.criticalPathDuration(), q.criticalPathDuration());
+		Task last = q.getTask(prev.getId());
+		assertEquals(6, last.getRequiredSkills().get("ml").intValue());
+		assertEquals(Task.Status.DONE, last.getStatus());
+		assertEquals(0.75, last.getProgress(), 0);
+		assertEquals(Long.valueOf(r.getId()), last.getAssignedResearcherId());
+		Researcher r2 = q.getResearcher(r.getId());
+		assertEquals(8, r2.getSkillLevel("ml"));
+		assertEquals(r.getRating(), r2.getRating(), 0);
+		assertEquals(1, r2.assignedCount());
+		assertEquals(r.getCapacity(), r2.getCapacity());
+		assertEquals(30, r2.getWeeklyCapacity());
+		assertEquals(0.9, q.getRisks().get(0).getImpact(), 0);
+		assertEquals(5000, q.getBudget().categoryCost("HARDWARE"), 0);
+	}
+
+	@Test
+	public void testCorruptBlockLengthIsRejected() {
+		Project p = new Project("p");
+		for (int i = 0; i < 3; i++) p.addTask(new Task("t" + i, 2, Task.Priority.LOW));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ProjectTransfer.exportTo(p, bytes);
+		byte[] export = bytes.toByteArray();
+		// magic, id, name length, "p", task count; the first task block length follows
+		int at = 4 + 8 + 4 + 1 + 4;
+		assertEquals(3, ByteBuffer.wrap(export).getInt(at));
+		for (int n : new int[] {-1, 0, 4, ProjectTransfer.BLOCK + 1, Integer.MAX_VALUE}) {
+			byte[] corrupt = export.clone();
+			ByteBuffer.wrap(corrupt).putInt(at, n);
+			try {
+				ProjectTransfer.importFrom(new ByteArrayInputStream(corrupt));
+				fail("block length " + n + " accepted");
+			} catch (DomainException e) {
+				assertEquals("corrupt block", e.getMessage());
+			}
+		}
+	}
+
+	@Test
+	public void testTruncatedExportIsRejected() {
+		Project p = new Project("p");
+		Task a = p.addTask(new Task("a", 2, Task.Priority.LOW));
+		p.addTask(new Task("b", 3, Task.Priority.HIGH)).addDependency(a);
+		a.requireSkill("ml", 4);
+		p.addResearcher(new Researcher("ana", 30)).addSkill("ml", 5);
+		p.addRisk(new Risk("drift", "DATA", 0.2, 0.9));
+		p.getBudget().add(new Budget.Item("cluster", 5000, 9, "HARDWARE"));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ProjectTransfer.exportTo(p, bytes);
+		byte[] export = bytes.toByteArray();
+		for (int len = 0; len < export.length; len++) {
+			try {
+				ProjectTransfer.importFrom(new ByteArrayInputStream(export, 0, len));
+				fail("export cut at " + len + " accepted");
+			} catch (DomainException expected) {
+			}
+		}
+	}
+}
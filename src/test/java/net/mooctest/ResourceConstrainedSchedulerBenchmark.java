@@ -0,0 +1,29 @@
+package net.mooctest;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class ResourceConstrainedSchedulerBenchmark {
+
+	private static final int TASKS = 100_000;
+	private static final int CAPACITY = 50;
+	private static final int RANDOM_STARTS = 16;
+
+	public static void main(String[] args) {
+		List<Task> tasks = SchedulerBenchmark.deepDag(TASKS, 1000, new Random(5));
+		TaskGraph graph = TaskGraph.of(tasks);
+		int cpm = new Scheduler().schedule(graph);
+		ResourceConstrainedScheduler scheduler = new ResourceConstrainedScheduler(CAPACITY, t -> 1 + t.getDuration() % 3);
+		System.out.println("rule\tgeneration\tms\tmakespan\tcpm");
+		for (ResourceConstrainedScheduler.Generation g : ResourceConstrainedScheduler.Generation.values()) {
+			long start = System.nanoTime();
+			ResourceConstrainedScheduler.Result r = scheduler.schedule(tasks, ResourceConstrainedScheduler.PriorityRule.LATEST_FINISH, g);
+			System.out.printf("LATEST_FINISH\t%s\t%.1f\t%d\t%d%n", g, (System.nanoTime() - start) / 1e6, r.getMakespan(), cpm);
+		}
+		long start = System.nanoTime();
+		ResourceConstrainedScheduler.Result best = scheduler.scheduleBest(graph, RANDOM_STARTS, 1L, ForkJoinPool.commonPool());
+		System.out.printf("best of %d\t%s/%s\t%.1f\t%d\t%d%n", 12 + RANDOM_STARTS, best.getRule(), best.getGeneration(),
+				(System.nanoTime() - start) / 1e6, best.getMakespan(), cpm);
+	}
+}
@@ -0,0 +1,107 @@
+package net.mooctest;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ResourceConstrainedSchedulerTest {
+
+	@Test
+	public void testSingleResearcherSerialisesWork() {
+		Task a = new Task("a", 3, Task.Priority.HIGH);
+		Task b = new Task("b", 2, Task.Priority.LOW);
+		Task c = new Task("c", 2, Task.Priority.LOW);
+		c.addDependency(a);
+		List<Task> tasks = Arrays.asList(a, b, c);
+		ResourceConstrainedScheduler.Result r = new ResourceConstrainedScheduler(1).schedule(tasks);
+		assertEquals(7, r.getMakespan());
+		assertEquals(0, a.getEst());
+		assertTrue(c.getEst() >= a.getEft());
+		int[][] spans = { { a.getEst(), a.getEft() }, { b.getEst(), b.getEft() }, { c.getEst(), c.getEft() } };
+		for (int i = 0; i < spans.length; i++) {
+			for (int j = i + 1; j < spans.length; j++) assertTrue(spans[i][1] <= spans[j][0] || spans[j][1] <= spans[i][0]);
+		}
+
+		Researcher full = new Researcher("full", 40);
+		Researcher half = new Researcher("half", 20);
+		full.allocateHours(35);
+		a.assignTo(full.getId());
+		b.assignTo(full.getId());
+		c.assignTo(half.getId());
+		List<Researcher> team = Arrays.asList(full, half);
+		assertEquals(5, ResourceConstrainedScheduler.forResearchers(team, t -> 20).schedule(tasks,
+				ResourceConstrainedScheduler.PriorityRule.SHORTEST_DURATION, ResourceConstrainedScheduler.Generation.PARALLEL).getMakespan());
+		assertEquals(7, ResourceConstrainedScheduler.forResearchers(team, t -> t == c ? 20 : 30).schedule(tasks,
+				ResourceConstrainedScheduler.PriorityRule.SHORTEST_DURATION, ResourceConstrainedScheduler.Generation.PARALLEL).getMakespan());
+		try {
+			ResourceConstrainedScheduler.forResearchers(team, t -> 30).schedule(tasks);
+			fail("demand above capacity accepted");
+		} catch (DomainException expected) {
+		}
+	}
+
+	@Test
+	public void testMultiStartNeverWorseThanSingleRules() {
+		List<Task> tasks = SchedulerTest.randomDag(2000, 10, new Random(11));
+		ResourceConstrainedScheduler s = new ResourceConstrainedScheduler(6, t -> 1 + t.getDuration() % 3);
+		int bestSingle = Integer.MAX_VALUE;
+		for (ResourceConstrainedScheduler.PriorityRule rule : ResourceConstrainedScheduler.PriorityRule.values()) {
+			for (ResourceConstrainedScheduler.Generation g : ResourceConstrainedScheduler.Generation.values()) {
+				int m = s.schedule(tasks, rule, g).getMakespan();
+				bestSingle = Math.min(bestSingle, m);
+			}
+		}
+		assertTrue(bestSingle >= new Scheduler().schedule(TaskGraph.of(tasks)));
+		ResourceConstrainedScheduler.Result best = s.scheduleBest(tasks, 6, 42L);
+		assertTrue(best.getMakespan() <= bestSingle);
+		for (Task t : tasks) {
+			assertEquals(best.getStart(t), t.getEst());
+			for (Task d : t.getDependencies()) assertTrue(d.getEft() <= t.getEst());
+		}
+	}
+
+	@Test
+	public void testResearcherUsageNeverExceedsWeeklyCapacity() {
+		Random rnd = new Random(17);
+		List<Task> tasks = SchedulerTest.randomDag(400, 10, rnd);
+		List<Researcher> team = new ArrayList<>();
+		for (int i = 0; i < 5; i++) team.add(new Researcher("r" + i, 20 + 5 * i));
+		team.get(4).allocateHours(40);
+		int unassigned = 0;
+		for (Task t : tasks) {
+			int k = rnd.nextInt(team.size() + 1);
+			if (k < team.size()) t.assignTo(team.get(k).getId());
+			else unassigned++;
+		}
+		assertTrue(unassigned > 0);
+		ResourceConstrainedScheduler s = ResourceConstrainedScheduler.forResearchers(team, t -> 10 + t.getDuration() % 3 * 5);
+		List<ResourceConstrainedScheduler.Result> results = new ArrayList<>();
+		for (ResourceConstrainedScheduler.PriorityRule rule : ResourceConstrainedScheduler.PriorityRule.values()) {
+			for (ResourceConstrainedScheduler.Generation g : ResourceConstrainedScheduler.Generation.values()) {
+				results.add(s.schedule(tasks, rule, g));
+			}
+		}
+		results.add(s.scheduleBest(tasks, 4, 7L));
+		for (ResourceConstrainedScheduler.Result r : results) {
+			Map<Long, int[]> usage = new HashMap<>();
+			for (Researcher res : team) usage.put(res.getId(), new int[r.getMakespan()]);
+			for (Task t : tasks) {
+				int start = r.getStart(t);
+				for (Task d : t.getDependencies()) assertTrue(r.getStart(d) + d.getDuration() <= start);
+				if (t.getAssignedResearcherId() == null) continue;
+				int[] used = usage.get(t.getAssignedResearcherId());
+				for (int u = start; u < start + t.getDuration(); u++) used[u] += 10 + t.getDuration() % 3 * 5;
+			}
+			for (Researcher res : team) {
+				for (int used : usage.get(res.getId())) assertTrue(used <= res.getWeeklyCapacity());
+			}
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package net.mooctest;
+
+import static org.junit.Assert.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class ResourceTest {
+
+	private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+	private static LocalDateTime at(int hour) {
+		return T0.plusHours(hour);
+	}
+
+	@Test
+	public void testOverlapDetectsBookingsStartingInsideWindow() {
+		Resource gpu = new Resource("gpu-1", "GPU");
+		assertTrue(gpu.book(at(2), at(4)));
+		assertFalse(gpu.isAvailable(at(1), at(3)));
+		assertTrue(gpu.conflicts(at(0), at(10)));
+		assertFalse(gpu.book(at(0), at(10)));
+		assertTrue(gpu.book(at(4), at(5)));
+		assertTrue(gpu.isAvailable(at(0), at(2)));
+		assertFalse(gpu.conflicts(at(5), at(6)));
+		assertEquals(2, gpu.overlapping(at(3), at(6)).size());
+	}
+
+	@Test
+	public void testFreeSlotSearch() {
+		Resource a = new Resource("gpu-a", "GPU");
+		Resource b = new Resource("gpu-b", "GPU");
+		Resource cpu = new Resource("cpu", "CPU");
+		a.book(at(0), at(2));
+		a.book(at(3), at(6));
+		b.book(at(0), at(5));
+		assertEquals(at(2), a.nextFreeSlot(at(0), Duration.ofHours(1)));
+		assertEquals(at(6), a.nextFreeSlot(at(1), Duration.ofHours(2)));
+		assertNull(a.nextFreeSlot(at(1), Duration.ZERO));
+
+		Resource.Slot slot = Resource.firstFreeSlot(Arrays.asList(a, b, cpu), "GPU", at(0), Duration.ofHours(2));
+		assertSame(b, slot.getResource());
+		assertEquals(at(5), slot.getStart());
+		assertEquals(at(7), slot.getEnd());
+		assertSame(cpu, Resource.firstFreeSlot(Arrays.asList(a, b, cpu), null, at(0), Duration.ofHours(2)).getResource());
+	}
+
+	@Test
+	public void testPoolFindsEarliestCommonWindow() {
+		Resource gpu1 = new Resource("gpu-1", "GPU");
+		Resource gpu2 = new Resource("gpu-2", "GPU");
+		Resource scope = new Resource("scope", "MICROSCOPE");
+		gpu1.book(at(0), at(3));
+		gpu1.book(at(5), at(8));
+		gpu2.book(at(1), at(6));
+		scope.book(at(0), at(4));
+		scope.book(at(6), at(7));
+		ResourcePool pool = new ResourcePool();
+		pool.add(gpu1);
+		pool.add(gpu2);
+		pool.add(scope);
+
+		ResourcePool.Window w = pool.earliestWindow(Arrays.asList("GPU", "MICROSCOPE"), at(0), Duration.ofHours(1));
+		assertEquals(at(4), w.getStart());
+		assertSame(gpu1, w.getResource("GPU"));
+		assertSame(scope, w.getResource("MICROSCOPE"));
+
+		w = pool.earliestWindow(Arrays.asList("GPU", "MICROSCOPE"), at(0), Duration.ofHours(2));
+		assertEquals(at(7), w.getStart());
+		assertSame(gpu2, w.getResource("GPU"));
+		assertTrue(w.getResource("GPU").isAvailable(w.getStart(), w.getEnd()));
+		assertNull(pool.earliestWindow(Collections.singletonList("LASER"), at(0), Duration.ofHours(1)));
+	}
+}
@@ -0,0 +1,116 @@
+package net.mooctest;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class RiskAnalyzerTest {
+
+	private RiskAnalyzer analyzer;
+	private List<Risk> risks;
+
+	@Before
+	public void setUp() {
+		analyzer = new RiskAnalyzer();
+		risks = new ArrayList<>();
+		risks.add(new Risk("Supplier", "SUPPLY", 0.3, 0.5));
+		risks.add(new Risk("Staff", "PEOPLE", 0.2, 0.4));
+		risks.add(new Risk("Outage", "INFRA", 0.1, 0.9));
+	}
+
+	@Test
+	public void testParallelResultIndependentOfThreadCount() {
+		ForkJoinPool one = new ForkJoinPool(1);
+		ForkJoinPool four = new ForkJoinPool(4);
+		try {
+			RiskAnalyzer.SimulationResult a = analyzer.simulateParallel(risks, 100_000, 11L, one);
+			RiskAnalyzer.SimulationResult b = analyzer.simulateParallel(risks, 100_000, 11L, four);
+			assertEquals(a.getMeanImpact(), b.getMeanImpact(), 0);
+			assertEquals(a.getP90Impact(), b.getP90Impact(), 0);
+			assertEquals(a.getWorstCaseImpact(), b.getWorstCaseImpact(), 0);
+		} finally {
+			one.shutdown();
+			four.shutdown();
+		}
+	}
+
+	@Test
+	public void testParallelMeanConvergesToExpectedImpact() {
+		RiskAnalyzer.SimulationResult r = analyzer.simulateParallel(risks, 200_000);
+		assertEquals(0.3 * 0.5 + 0.2 * 0.4 + 0.1 * 0.9, r.getMeanImpact(), 0.01);
+		assertTrue(r.getWorstCaseImpact() <= 1.8 + 1e-9);
+	}
+
+	@Test
+	public void testQuantilesAreOrderedAndHistogramCountsEveryIteration() {
+		RiskAnalyzer.SimulationResult r = analyzer.simulate(risks, 5000);
+		assertTrue(r.getP50Impact() <= r.getP90Impact());
+		assertTrue(r.getP90Impact() <= r.getP95Impact());
+		assertTrue(r.getP95Impact() <= r.getP99Impact());
+		assertTrue(r.getP99Impact() <= r.getWorstCaseImpact());
+		assertEquals(5000, r.getHistogram().getCount());
+		RiskAnalyzer.SimulationResult p = analyzer.simulateParallel(risks, 50_000);
+		assertEquals(50_000, p.getHistogram().getCount());
+		assertEquals(r.getP90Impact(), p.getP90Impact(), 0.05);
+	}
+
+	@Test
+	public void testPrecisionRunStopsOnceIntervalsAreNarrow() {
+		RiskAnalyzer.SimulationResult loose = analyzer.simulateToPrecision(risks, 0.05, 0.5, 10_000_000);
+		assertTrue(loose.isConverged());
+		assertEquals(RiskAnalyzer.CHUNK_SIZE, loose.getIterations());
+		RiskAnalyzer.SimulationResult capped = analyzer.simulateToPrecision(risks, 1e-9, 1e-9, 40_000);
+		assertFalse(capped.isConverged());
+		assertEquals(40_000, capped.getIterations());
+	}
+
+	@Test
+	public void testFullCategoryCorrelationKeepsMarginalsButMovesTail() {
+		List<Risk> grouped = new ArrayList<>();
+		for (int i = 0; i < 10; i++) grouped.add(new Risk("R" + i, "VENDOR", 0.2, 0.1));
+		RiskAnalyzer.SimulationResult independent = analyzer.simulateParallel(grouped, 100_000);
+		RiskAnalyzer.SimulationResult correlated = analyzer.simulateCorrelated(grouped,
+				Collections.singletonMap("VENDOR", 1.0), 100_000);
+		assertEquals(0.2, independent.getMeanImpact(), 0.01);
+		assertEquals(0.2, correlated.getMeanImpact(), 0.01);
+		assertEquals(0, correlated.getP50Impact(), 1e-3);
+		assertEquals(1.0, correlated.getP90Impact(), 1e-3);
+		assertTrue(independent.getP90Impact() < 0.5);
+	}
+
+	@Test
+	public void testHistogramQuantileErrorDoesNotGrowWithPortfolioSize() {
+		// 10k risks: the sum of impacts is far above the observed range, so fixed-width bins would be coarse
+		QuantileHistogram left = QuantileHistogram.withRelativeError(QuantileHistogram.DEFAULT_RELATIVE_ERROR);
+		QuantileHistogram right = QuantileHistogram.withRelativeError(QuantileHistogram.DEFAULT_RELATIVE_ERROR);
+		double[] values = new double[100_000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = 4_900 + i * 0.002;
+			(i % 2 == 0 ? left : right).add(values[i]);
+		}
+		left.merge(right);
+		assertEquals(values.length, left.getCount());
+		for (double q : new double[] {0.5, 0.9, 0.99}) {
+			double exact = values[(int)Math.floor(values.length * q)];
+			assertEquals(exact, left.quantile(q), exact * QuantileHistogram.DEFAULT_RELATIVE_ERROR);
+		}
+		assertEquals(values[0], left.quantile(0), values[0] * QuantileHistogram.DEFAULT_RELATIVE_ERROR);
+	}
+
+	@Test
+	public void testConvergedP90AgreesWithLongRunWithinRequestedWidth() {
+		List<Risk> spread = new ArrayList<>();
+		for (int i = 1; i <= 50; i++) spread.add(new Risk("R" + i, "OPS", 0.3, i * 0.01));
+		RiskAnalyzer.SimulationResult precise = analyzer.simulateToPrecision(spread, 1.0, 0.05, 4_000_000);
+		assertTrue(precise.isConverged());
+		assertTrue(precise.getIterations() < 4_000_000);
+		RiskAnalyzer.SimulationResult reference = analyzer.simulateParallel(spread, 1_000_000, 99L, ForkJoinPool.commonPool());
+		assertEquals(reference.getP90Impact(), precise.getP90Impact(), 0.05);
+	}
+}
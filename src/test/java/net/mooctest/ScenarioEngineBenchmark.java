@@ -0,0 +1,36 @@
+package net.mooctest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class ScenarioEngineBenchmark {
+
+	private static final int TASKS = 100_000;
+	private static final int SCENARIOS = 500;
+
+	public static void main(String[] args) {
+		Random rnd = new Random(17);
+		Project project = new Project("bench");
+		List<Task> tasks = SchedulerBenchmark.deepDag(TASKS, 1000, rnd);
+		for (Task t : tasks) project.addTask(t);
+		project.getBudget().add(new Budget.Item("base", 1_000_000, 1, "GENERAL"));
+		List<ScenarioEngine.Scenario> scenarios = new ArrayList<>();
+		for (int i = 0; i < SCENARIOS; i++) {
+			Task t = tasks.get(rnd.nextInt(TASKS));
+			scenarios.add(new ScenarioEngine.Scenario("s" + i, rnd.nextDouble() * 0.2, rnd.nextDouble() * 0.5,
+					Collections.singletonMap(t, t.getDuration() * 2 + 1)));
+		}
+		ScenarioEngine engine = new ScenarioEngine(project);
+		for (int round = 0; round < 3; round++) {
+			long start = System.nanoTime();
+			ScenarioEngine.ResultTable table = engine.evaluate(scenarios);
+			double ms = (System.nanoTime() - start) / 1e6;
+			int worst = 0;
+			for (int i = 0; i < table.size(); i++) worst = Math.max(worst, table.getMakespan(i));
+			System.out.printf("round %d\t%d scenarios\t%.1f ms\tbase=%d\tworst=%d%n", round, table.size(), ms,
+					table.getBaseMakespan(), worst);
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package net.mooctest;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ScenarioEngineTest {
+
+	private Project project;
+	private Task design;
+	private Task build;
+	private Task docs;
+
+	@Before
+	public void setUp() {
+		project = new Project("Grant");
+		design = project.addTask(new Task("Design", 3, Task.Priority.HIGH));
+		build = project.addTask(new Task("Build", 5, Task.Priority.HIGH));
+		docs = project.addTask(new Task("Docs", 2, Task.Priority.LOW));
+		build.addDependency(design);
+		docs.addDependency(design);
+		project.getBudget().add(new Budget.Item("Servers", 20000, 5, "INFRA"));
+	}
+
+	@Test
+	public void testScenariosMatchDirectRecomputation() {
+		List<ScenarioEngine.Scenario> scenarios = new ArrayList<>();
+		scenarios.add(new ScenarioEngine.Scenario("base", 0));
+		scenarios.add(new ScenarioEngine.Scenario("inflation", 0.1, 0.3, null));
+		scenarios.add(new ScenarioEngine.Scenario("slow docs", 0, Double.NaN, Collections.singletonMap(docs, 9)));
+		scenarios.add(new ScenarioEngine.Scenario("fast build", 0, Double.NaN, Collections.singletonMap(build, 1)));
+		ScenarioEngine.ResultTable table = project.evaluateScenarios(scenarios);
+		assertEquals(4, table.size());
+		assertEquals(8, table.getBaseMakespan());
+		assertEquals(8, table.getMakespan(0));
+		assertEquals(2000, table.getRequiredReserve(0), 1e-9);
+		assertEquals(project.getBudget().forecastCost(0.1), table.getForecastCost(1), 1e-9);
+		assertEquals(6000, table.getRequiredReserve(1), 1e-9);
+		assertEquals(12, table.getMakespan(table.indexOf("slow docs")));
+		assertEquals(5, table.getMakespan(3));
+		assertEquals(-3, table.getMakespanDelta(3));
+		assertEquals(5, build.getDuration());
+	}
+
+	@Test
+	public void testEngineRecompilesAfterScheduleChange() {
+		ScenarioEngine engine = new ScenarioEngine(project);
+		List<ScenarioEngine.Scenario> base = Collections.singletonList(new ScenarioEngine.Scenario("base", 0));
+		assertEquals(8, engine.evaluate(base).getMakespan(0));
+		build.setDuration(10);
+		assertEquals(13, engine.evaluate(base).getMakespan(0));
+	}
+
+	@Test
+	public void testRecompileDuringEvaluationKeepsEachTableConsistent() throws InterruptedException {
+		List<ScenarioEngine.Scenario> scenarios = new ArrayList<>();
+		for (int i = 0; i < 64; i++) {
+			scenarios.add(i % 2 == 0 ? new ScenarioEngine.Scenario("base" + i, 0)
+					: new ScenarioEngine.Scenario("slow docs" + i, 0, Double.NaN, Collections.singletonMap(docs, 20)));
+		}
+		Thread writer = new Thread(() -> {
+			for (int i = 0; i < 2000; i++) build.setDuration(i % 2 == 0 ? 10 : 5);
+		});
+		writer.start();
+		while (writer.isAlive()) {
+			ScenarioEngine.ResultTable table = project.evaluateScenarios(scenarios);
+			int base = table.getBaseMakespan();
+			assertTrue(base == 8 || base == 13);
+			for (int i = 0; i < table.size(); i++) assertEquals(i % 2 == 0 ? base : 23, table.getMakespan(i));
+		}
+		writer.join();
+	}
+}
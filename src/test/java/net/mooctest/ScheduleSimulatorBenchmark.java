@@ -0,0 +1,36 @@
+package net.mooctest;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class ScheduleSimulatorBenchmark {
+
+	private static final int TASKS = 2_000;
+	private static final int ITERATIONS = 200_000;
+
+	public static void main(String[] args) {
+		Random rnd = new Random(9);
+		List<Task> tasks = SchedulerBenchmark.deepDag(TASKS, 50, rnd);
+		Map<Task, ScheduleSimulator.Estimate> est = new HashMap<>();
+		for (Task t : tasks) {
+			double mode = t.getDuration();
+			ScheduleSimulator.Distribution d = rnd.nextBoolean() ? ScheduleSimulator.Distribution.PERT : ScheduleSimulator.Distribution.TRIANGULAR;
+			est.put(t, new ScheduleSimulator.Estimate(mode * 0.8, mode, mode * (1.2 + rnd.nextDouble()), d));
+		}
+		long start = System.nanoTime();
+		ScheduleSimulator sim = new ScheduleSimulator(tasks, est);
+		System.out.printf("compile\t%.1f ms%n", (System.nanoTime() - start) / 1e6);
+		for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			start = System.nanoTime();
+			ScheduleSimulator.Result r = sim.simulate(ITERATIONS, 1L, pool);
+			double ms = (System.nanoTime() - start) / 1e6;
+			System.out.printf("threads=%d\t%.1f ms\tmean=%.1f\tp50=%.1f\tp90=%.1f\tp95=%.1f%n", threads, ms,
+					r.getMeanDuration(), r.getP50Duration(), r.getP90Duration(), r.getP95Duration());
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package net.mooctest;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class ScheduleSimulatorTest {
+
+	@Test
+	public void testChainMeanAndCriticality() {
+		Task a = new Task("A", 4, Task.Priority.HIGH);
+		Task b = new Task("B", 6, Task.Priority.HIGH);
+		Task side = new Task("Side", 1, Task.Priority.LOW);
+		b.addDependency(a);
+		Map<Task, ScheduleSimulator.Estimate> est = new HashMap<>();
+		est.put(a, new ScheduleSimulator.Estimate(2, 4, 9, ScheduleSimulator.Distribution.TRIANGULAR));
+		est.put(b, new ScheduleSimulator.Estimate(4, 6, 14, ScheduleSimulator.Distribution.PERT));
+		ScheduleSimulator sim = new ScheduleSimulator(Arrays.asList(a, b, side), est);
+		ScheduleSimulator.Result r = sim.simulate(200_000);
+		assertEquals(5 + 7, r.getMeanDuration(), 0.05);
+		assertEquals(1.0, r.getCriticality(a), 0);
+		assertEquals(1.0, r.getCriticality(b), 0);
+		assertEquals(0.0, r.getCriticality(side), 0);
+		assertTrue(r.getP50Duration() <= r.getP90Duration());
+		assertTrue(r.getWorstCaseDuration() <= 23);
+	}
+
+	@Test
+	public void testParallelBranchesShareCriticality() {
+		Task start = new Task("Start", 0, Task.Priority.MEDIUM);
+		Task x = new Task("X", 5, Task.Priority.MEDIUM);
+		Task y = new Task("Y", 5, Task.Priority.MEDIUM);
+		x.addDependency(start);
+		y.addDependency(start);
+		Map<Task, ScheduleSimulator.Estimate> est = new HashMap<>();
+		est.put(x, new ScheduleSimulator.Estimate(3, 5, 7, ScheduleSimulator.Distribution.TRIANGULAR));
+		est.put(y, new ScheduleSimulator.Estimate(3, 5, 7, ScheduleSimulator.Distribution.TRIANGULAR));
+		ScheduleSimulator sim = new ScheduleSimulator(Arrays.asList(start, x, y), est);
+		ForkJoinPool one = new ForkJoinPool(1);
+		ForkJoinPool four = new ForkJoinPool(4);
+		try {
+			ScheduleSimulator.Result a = sim.simulate(100_000, 7L, one);
+			ScheduleSimulator.Result b = sim.simulate(100_000, 7L, four);
+			assertEquals(a.getMeanDuration(), b.getMeanDuration(), 0);
+			assertEquals(a.getCriticality(x), b.getCriticality(x), 0);
+			assertEquals(0.5, a.getCriticality(x), 0.01);
+			assertEquals(1.0, a.getCriticality(x) + a.getCriticality(y), 1e-9);
+			assertEquals(1.0, a.getCriticality(start), 0);
+		} finally {
+			one.shutdown();
+			four.shutdown();
+		}
+	}
+
+	@Test
+	public void testLowQuantilesStayAccurateUnderLongTailedMaximum() {
+		Task narrow = new Task("Narrow", 300, Task.Priority.MEDIUM);
+		Task tail = new Task("Tail", 1, Task.Priority.MEDIUM);
+		Map<Task, ScheduleSimulator.Estimate> est = new HashMap<>();
+		est.put(narrow, new ScheduleSimulator.Estimate(300, 300, 310, ScheduleSimulator.Distribution.TRIANGULAR));
+		est.put(tail, new ScheduleSimulator.Estimate(1, 1, 1_000_000, ScheduleSimulator.Distribution.TRIANGULAR));
+		ScheduleSimulator.Result r = new ScheduleSimulator(Arrays.asList(narrow, tail), est).simulate(2_000_000);
+		// about 0.06% of runs finish inside the narrow branch's 10-unit window, far narrower than one linear bin of max / bins
+		assertEquals(304.17, r.getQuantile(0.0004), 1.5);
+		double exact = 1_000_000 - 999_999 * Math.sqrt(1 - 0.5);
+		assertEquals(exact, r.getP50Duration(), 0.01 * exact);
+	}
+}
@@ -0,0 +1,65 @@
+package net.mooctest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class SchedulerBenchmark {
+
+	private static final int TASKS = 500_000;
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) {
+		System.out.println("shape\tlevels\tsequential ms\tparallel ms\tidentical");
+		run("wide", wideDag(TASKS, 8, new Random(1)));
+		run("deep", deepDag(TASKS, 64, new Random(2)));
+	}
+
+	private static void run(String shape, List<Task> tasks) {
+		Scheduler scheduler = new Scheduler();
+		TaskGraph graph = TaskGraph.of(tasks);
+		graph.levelCount();
+		long seq = Long.MAX_VALUE;
+		long par = Long.MAX_VALUE;
+		int[] expected = null;
+		boolean identical = true;
+		for (int r = 0; r < ROUNDS; r++) {
+			long start = System.nanoTime();
+			scheduler.schedule(graph);
+			seq = Math.min(seq, System.nanoTime() - start);
+			if (expected == null) expected = snapshot(tasks);
+			start = System.nanoTime();
+			scheduler.scheduleParallel(graph, ForkJoinPool.commonPool());
+			par = Math.min(par, System.nanoTime() - start);
+			identical &= java.util.Arrays.equals(expected, snapshot(tasks));
+		}
+		System.out.printf("%s\t%d\t%.1f\t%.1f\t%b%n", shape, graph.levelCount(), seq / 1e6, par / 1e6, identical);
+	}
+
+	private static int[] snapshot(List<Task> tasks) {
+		int[] res = new int[tasks.size() * 2];
+		for (int i = 0; i < tasks.size(); i++) {
+			res[2 * i] = tasks.get(i).getEst();
+			res[2 * i + 1] = tasks.get(i).getLst();
+		}
+		return res;
+	}
+
+	static List<Task> wideDag(int n, int levels, Random rnd) {
+		return SchedulerTest.randomDag(n, levels, rnd);
+	}
+
+	static List<Task> deepDag(int n, int width, Random rnd) {
+		List<Task> tasks = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			Task t = new Task("T" + i, 1 + rnd.nextInt(9), Task.Priority.MEDIUM);
+			if (i >= width) {
+				t.addDependency(tasks.get(i - width));
+				t.addDependency(tasks.get(i - width + rnd.nextInt(width)));
+			}
+			tasks.add(t);
+		}
+		return tasks;
+	}
+}
@@ -0,0 +1,84 @@
+package net.mooctest;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class SchedulerTest {
+
+	@Test
+	public void testParallelScheduleMatchesSequentialOnWideDag() {
+		List<Task> tasks = randomDag(20_000, 4, new Random(17));
+		Scheduler scheduler = new Scheduler();
+		scheduler.schedule(tasks);
+		int[][] expected = new int[tasks.size()][];
+		for (int i = 0; i < tasks.size(); i++) {
+			Task t = tasks.get(i);
+			expected[i] = new int[] { t.getEst(), t.getEft(), t.getLst(), t.getLft() };
+			t.setSchedule(0, 0, 0, 0);
+		}
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			scheduler.scheduleParallel(TaskGraph.of(tasks), pool);
+		} finally {
+			pool.shutdown();
+		}
+		for (int i = 0; i < tasks.size(); i++) {
+			Task t = tasks.get(i);
+			assertArrayEquals(expected[i], new int[] { t.getEst(), t.getEft(), t.getLst(), t.getLft() });
+		}
+	}
+
+	@Test
+	public void testPrerequisitesOutsideTheInputAreNotWritten() {
+		Task outside = new Task("outside", 5, Task.Priority.MEDIUM);
+		outside.setSchedule(1, 2, 3, 4);
+		AtomicInteger notified = new AtomicInteger();
+		outside.addObserver(new TaskObserver() {
+			@Override
+			public void statusChanged(Task task, Task.Status from, Task.Status to) {
+				notified.incrementAndGet();
+			}
+
+			@Override
+			public void scheduleChanged(Task task) {
+				notified.incrementAndGet();
+			}
+		});
+		Project project = new Project("p");
+		Task a = project.addTask(new Task("a", 3, Task.Priority.MEDIUM));
+		a.addDependency(outside);
+		List<Task> input = new ArrayList<>();
+		input.add(a);
+
+		Scheduler scheduler = new Scheduler();
+		scheduler.schedule(input);
+		assertEquals(5, a.getEst());
+		scheduler.scheduleParallel(input);
+		assertEquals(8, scheduler.schedule(project.snapshot()));
+		assertEquals(8, scheduler.scheduleParallel(project.snapshot(), null));
+		assertEquals(8, a.getEft());
+		assertArrayEquals(new int[] { 1, 2, 3, 4 }, new int[] { outside.getEst(), outside.getEft(), outside.getLst(), outside.getLft() });
+		assertEquals(0, notified.get());
+	}
+
+	static List<Task> randomDag(int n, int levels, Random rnd) {
+		List<Task> tasks = new ArrayList<>(n);
+		int perLevel = Math.max(1, n / levels);
+		for (int i = 0; i < n; i++) {
+			Task t = new Task("T" + i, 1 + rnd.nextInt(9), Task.Priority.MEDIUM);
+			int levelStart = (i / perLevel) * perLevel;
+			if (levelStart > 0) {
+				for (int k = 0; k < 3; k++) t.addDependency(tasks.get(rnd.nextInt(levelStart)));
+			}
+			tasks.add(t);
+		}
+		return tasks;
+	}
+}
@@ -0,0 +1,73 @@
+package net.mooctest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+final class SyntheticData {
+
+	static final String[] CATEGORIES = { "LAB", "TRAVEL", "STAFF", "EQUIPMENT", "GENERAL" };
+	static final String[] RISK_CATEGORIES = { "SUPPLY", "PEOPLE", "INFRA", "FUNDING" };
+
+	private SyntheticData() {}
+
+	static List<Task> dag(int width, int depth, int fanIn, long seed) {
+		Random rnd = new Random(seed);
+		List<Task> tasks = new ArrayList<>(width * depth);
+		for (int level = 0; level < depth; level++) {
+			int prev = (level - 1) * width;
+			for (int i = 0; i < width; i++) {
+				Task t = new Task("L" + level + "T" + i, 1 + rnd.nextInt(9), Task.Priority.MEDIUM);
+				if (level > 0) {
+					for (int k = 0; k < fanIn; k++) t.addDependency(tasks.get(prev + rnd.nextInt(width)));
+				}
+				tasks.add(t);
+			}
+		}
+		return tasks;
+	}
+
+	static List<Task> skilledTasks(int n, int skills, long seed) {
+		Random rnd = new Random(seed);
+		Task.Priority[] priorities = Task.Priority.values();
+		List<Task> tasks = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			Task t = new Task("T" + i, 1 + rnd.nextInt(16), priorities[rnd.nextInt(priorities.length)]);
+			t.requireSkill("S" + rnd.nextInt(skills), 1 + rnd.nextInt(SkillIndex.MAX_LEVEL / 2));
+			tasks.add(t);
+		}
+		return tasks;
+	}
+
+	static List<Researcher> researchers(int n, int skills, long seed) {
+		Random rnd = new Random(seed);
+		List<Researcher> res = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			Researcher r = new Researcher("R" + i, 8 + rnd.nextInt(33));
+			r.updateRating(rnd.nextInt(101));
+			for (int k = 0; k < 4; k++) r.addSkill("S" + rnd.nextInt(skills), 1 + rnd.nextInt(SkillIndex.MAX_LEVEL));
+			res.add(r);
+		}
+		return res;
+	}
+
+	static Budget budget(int n, long seed) {
+		Random rnd = new Random(seed);
+		Budget budget = new Budget();
+		for (int i = 0; i < n; i++) {
+			double cost = 10 + rnd.nextInt(500);
+			budget.add(new Budget.Item("I" + i, cost, cost * (0.5 + rnd.nextDouble()), CATEGORIES[rnd.nextInt(CATEGORIES.length)],
+					1 + rnd.nextInt(200)));
+		}
+		return budget;
+	}
+
+	static List<Risk> risks(int n, long seed) {
+		Random rnd = new Random(seed);
+		List<Risk> risks = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			risks.add(new Risk("K" + i, RISK_CATEGORIES[rnd.nextInt(RISK_CATEGORIES.length)], rnd.nextDouble() * 0.5, rnd.nextDouble()));
+		}
+		return risks;
+	}
+}